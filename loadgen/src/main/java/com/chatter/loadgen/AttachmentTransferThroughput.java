@@ -0,0 +1,283 @@
+package com.chatter.loadgen;
+
+import com.chatter.service.JwtService;
+
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Uploads one large attachment in chunks, completes it and downloads it again, reporting the
+ * throughput of each step and the server's heap while it runs. Chatter runs in a child JVM with
+ * a small heap so a file many times the heap size shows that nothing is buffered in memory;
+ * heap is read over JMX as the peak of the heap pools during each step and as used heap after a
+ * full GC once it is done.
+ *
+ * <pre>
+ * mvn -Ploadgen clean install -DskipTests
+ * mvn -f loadgen/pom.xml compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.chatter.loadgen.AttachmentTransferThroughput --size-mb=1024"
+ * </pre>
+ *
+ * Options: {@code --server-jar} (the Chatter {@code -exec.jar}), {@code --size-mb},
+ * {@code --chunk-mb}, {@code --heap}, {@code --port}, {@code --jmx-port}. Files are written under
+ * {@code target/transfer-attachments} and removed at the end.
+ */
+public class AttachmentTransferThroughput {
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("\"uploadId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ATTACHMENT_ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String OWNER = "transfer@loadgen.local";
+
+    // exec:exec runs in loadgen/
+    private String serverJar = "../target/chatter-0.0.1-SNAPSHOT-exec.jar";
+    private long sizeMb = 1024;
+    private int chunkMb = 16;
+    private String heap = "256m";
+    private int port = 18082;
+    private int jmxPort = 18998;
+
+    private final Path attachmentsDir = Path.of("target", "transfer-attachments").toAbsolutePath();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private String authorization;
+    private MemoryMXBean memory;
+    private List<MemoryPoolMXBean> heapPools;
+
+    public static void main(String[] args) throws Exception {
+        AttachmentTransferThroughput transfer = new AttachmentTransferThroughput();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "server-jar" -> transfer.serverJar = value;
+                case "size-mb" -> transfer.sizeMb = Long.parseLong(value);
+                case "chunk-mb" -> transfer.chunkMb = Integer.parseInt(value);
+                case "heap" -> transfer.heap = value;
+                case "port" -> transfer.port = Integer.parseInt(value);
+                case "jmx-port" -> transfer.jmxPort = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        transfer.run();
+    }
+
+    private void run() throws Exception {
+        if (!new File(serverJar).isFile()) {
+            throw new IllegalArgumentException(serverJar + " not found, build Chatter first or pass --server-jar");
+        }
+        JwtService jwtService = LoadGenerator.standaloneJwtService(new LoadConfig().getJwtSecret());
+        authorization = "Bearer " + jwtService.generateToken(OWNER);
+        Process server = startServer();
+        try (JMXConnector jmx = connectJmx()) {
+            MBeanServerConnection connection = jmx.getMBeanServerConnection();
+            memory = ManagementFactory.newPlatformMXBeanProxy(
+                    connection, ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+            heapPools = ManagementFactory.getPlatformMXBeans(connection, MemoryPoolMXBean.class).stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+
+            long size = sizeMb * 1024 * 1024;
+            long chunk = (long) chunkMb * 1024 * 1024;
+            System.out.printf("%,d MB in %d MB chunks, server heap %s, baseline heap %,d bytes after GC%n",
+                    sizeMb, chunkMb, heap, usedHeapAfterGc());
+            System.out.printf("%-10s %10s %10s %16s %16s%n", "step", "seconds", "MB/s", "peak heap", "heap after GC");
+
+            resetPeaks();
+            long start = System.nanoTime();
+            String uploadId = match(UPLOAD_ID, send(HttpRequest.newBuilder(uri("/api/attachments/uploads?fileName=big.bin&size=" + size))
+                    .POST(HttpRequest.BodyPublishers.noBody())));
+            for (long offset = 0; offset < size; offset += chunk) {
+                long length = Math.min(chunk, size - offset);
+                long chunkOffset = offset;
+                send(HttpRequest.newBuilder(uri("/api/attachments/uploads/" + uploadId + "?offset=" + offset))
+                        .PUT(HttpRequest.BodyPublishers.fromPublisher(
+                                HttpRequest.BodyPublishers.ofInputStream(() -> new PatternStream(chunkOffset, length)), length)));
+            }
+            report("upload", start, size);
+
+            resetPeaks();
+            start = System.nanoTime();
+            String attachmentId = match(ATTACHMENT_ID, send(HttpRequest.newBuilder(uri("/api/attachments/uploads/" + uploadId + "/complete"))
+                    .POST(HttpRequest.BodyPublishers.noBody())));
+            report("complete", start, size);
+
+            resetPeaks();
+            start = System.nanoTime();
+            HttpResponse<InputStream> download = http.send(HttpRequest.newBuilder(uri("/api/attachments/" + attachmentId))
+                    .header("Authorization", authorization).build(), HttpResponse.BodyHandlers.ofInputStream());
+            long received = drain(download.body());
+            if (received != size) {
+                throw new IllegalStateException("Downloaded " + received + " of " + size + " bytes");
+            }
+            report("download", start, size);
+        } finally {
+            server.destroy();
+            server.waitFor(30, TimeUnit.SECONDS);
+            deleteAttachments();
+        }
+    }
+
+    private Process startServer() throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java,
+                "-Xms" + heap, "-Xmx" + heap,
+                "-Dcom.sun.management.jmxremote.port=" + jmxPort,
+                "-Dcom.sun.management.jmxremote.rmi.port=" + jmxPort,
+                "-Dcom.sun.management.jmxremote.authenticate=false",
+                "-Dcom.sun.management.jmxremote.ssl=false",
+                "-Djava.rmi.server.hostname=127.0.0.1",
+                "-jar", serverJar,
+                "--server.port=" + port,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.chatter=WARN",
+                "--logging.level.org.springframework.websocket=WARN",
+                "--chatter.websocket.drain.max-duration-ms=0",
+                "--chatter.attachments.dir=" + attachmentsDir,
+                "--chatter.attachments.max-chunk-size=" + (long) chunkMb * 1024 * 1024));
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        awaitReady(process);
+        return process;
+    }
+
+    private void awaitReady(Process process) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/ws-raw/info")).build();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Chatter exited with " + process.exitValue());
+            }
+            try {
+                if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (Exception e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Chatter did not start within 2 minutes");
+    }
+
+    private JMXConnector connectJmx() throws Exception {
+        JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + jmxPort + "/jmxrmi");
+        return JMXConnectorFactory.connect(url);
+    }
+
+    private String send(HttpRequest.Builder request) throws Exception {
+        HttpResponse<String> response = http.send(request.header("Authorization", authorization).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    private static String match(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unexpected response " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private void report(String step, long startNanos, long bytes) throws Exception {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("%-10s %10.1f %10.1f %,16d %,16d%n",
+                step, seconds, bytes / 1024.0 / 1024.0 / seconds, peak, usedHeapAfterGc());
+    }
+
+    private void resetPeaks() {
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+            Thread.sleep(1000);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long drain(InputStream body) throws Exception {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (body) {
+            for (int read; (read = body.read(buffer)) != -1; ) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private void deleteAttachments() throws Exception {
+        if (!Files.exists(attachmentsDir)) {
+            return;
+        }
+        try (var paths = Files.walk(attachmentsDir)) {
+            for (Path path : paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // Deterministic bytes for one chunk, so the file is incompressible but needs no memory
+    private static class PatternStream extends InputStream {
+        private static final byte[] BLOCK = new byte[1024 * 1024];
+
+        static {
+            new Random(42).nextBytes(BLOCK);
+        }
+
+        private long position;
+        private final long end;
+
+        PatternStream(long offset, long length) {
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() {
+            return position < end ? BLOCK[(int) (position++ % BLOCK.length)] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) {
+            if (position >= end) {
+                return -1;
+            }
+            int blockOffset = (int) (position % BLOCK.length);
+            int count = (int) Math.min(Math.min(len, end - position), BLOCK.length - blockOffset);
+            System.arraycopy(BLOCK, blockOffset, buffer, off, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.chatter.loadgen;
+
+import javax.management.MBeanServerConnection;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reports server heap per idle raw WebSocket connection on {@code /ws-raw}. Chatter runs in a child JVM so the
+ * clients' own memory is not counted; its heap is read over JMX after a full GC, first with no
+ * connections and then at each level, and the difference is divided by the connection count.
+ *
+ * <pre>
+ * mvn -Ploadgen clean install -DskipTests
+ * mvn -f loadgen/pom.xml compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.chatter.loadgen.IdleConnectionFootprint --high-density=true"
+ * </pre>
+ *
+ * Options: {@code --server-jar} (the Chatter {@code -exec.jar}), {@code --levels=10000,50000,100000},
+ * {@code --high-density}, {@code --heap}, {@code --port}, {@code --jmx-port}. Above ~28k
+ * connections the clients spread over several 127.0.0.x source addresses to stay clear of the
+ * ephemeral port range; {@code ulimit -n} has to allow twice the top level.
+ */
+public class IdleConnectionFootprint {
+
+    private static final int CONNECTIONS_PER_SOURCE_ADDRESS = 25_000;
+    private static final int MAX_PENDING_HANDSHAKES = 500;
+
+    // exec:exec runs in loadgen/
+    private String serverJar = "../target/chatter-0.0.1-SNAPSHOT-exec.jar";
+    private final List<Integer> levels = new ArrayList<>(List.of(10_000, 50_000, 100_000));
+    private boolean highDensity;
+    private String heap = "4g";
+    private int port = 18081;
+    private int jmxPort = 18999;
+
+    private final List<WebSocket> connections = new ArrayList<>();
+    private final List<HttpClient> clients = new ArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        IdleConnectionFootprint footprint = new IdleConnectionFootprint();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "server-jar" -> footprint.serverJar = value;
+                case "levels" -> {
+                    footprint.levels.clear();
+                    for (String level : value.split(",")) {
+                        footprint.levels.add(Integer.parseInt(level.trim()));
+                    }
+                }
+                case "high-density" -> footprint.highDensity = Boolean.parseBoolean(value);
+                case "heap" -> footprint.heap = value;
+                case "port" -> footprint.port = Integer.parseInt(value);
+                case "jmx-port" -> footprint.jmxPort = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        footprint.run();
+    }
+
+    private void run() throws Exception {
+        if (!new File(serverJar).isFile()) {
+            throw new IllegalArgumentException(serverJar + " not found, build Chatter first or pass --server-jar");
+        }
+        Process server = startServer();
+        try (JMXConnector jmx = connectJmx()) {
+            MBeanServerConnection connection = jmx.getMBeanServerConnection();
+            MemoryMXBean memory = ManagementFactory.newPlatformMXBeanProxy(
+                    connection, ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+
+            long baseline = usedHeapAfterGc(memory);
+            System.out.printf("high-density=%s, baseline heap %,d bytes%n", highDensity, baseline);
+            System.out.printf("%12s %16s %14s %10s%n", "connections", "heap used", "bytes/conn", "failures");
+            for (int level : levels) {
+                openUntil(level);
+                long used = usedHeapAfterGc(memory);
+                int open = connections.size();
+                System.out.printf("%,12d %,16d %,14d %,10d%n", open, used, open > 0 ? (used - baseline) / open : 0, failures.get());
+            }
+        } finally {
+            for (WebSocket webSocket : connections) {
+                webSocket.abort();
+            }
+            server.destroy();
+            server.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private Process startServer() throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java,
+                "-Xms" + heap, "-Xmx" + heap,
+                "-Dcom.sun.management.jmxremote.port=" + jmxPort,
+                "-Dcom.sun.management.jmxremote.rmi.port=" + jmxPort,
+                "-Dcom.sun.management.jmxremote.authenticate=false",
+                "-Dcom.sun.management.jmxremote.ssl=false",
+                "-Djava.rmi.server.hostname=127.0.0.1"));
+        if (highDensity) {
+            command.add("-Dorg.apache.tomcat.websocket.DEFAULT_BUFFER_SIZE=2048");
+        }
+        command.addAll(List.of("-jar", serverJar,
+                "--server.port=" + port,
+                "--server.tomcat.max-connections=" + (maxLevel() + 1000),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.chatter=WARN",
+                "--logging.level.org.springframework.websocket=WARN",
+                "--chatter.websocket.drain.max-duration-ms=0",
+                "--chatter.websocket.high-density.enabled=" + highDensity,
+                "--chatter.websocket.high-density.max-connections=" + (maxLevel() + 1000)));
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        awaitReady(process);
+        return process;
+    }
+
+    private void awaitReady(Process process) throws Exception {
+        HttpClient probe = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/ws-raw/info")).build();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Chatter exited with " + process.exitValue());
+            }
+            try {
+                if (probe.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (Exception e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("Chatter did not start within 2 minutes");
+    }
+
+    private JMXConnector connectJmx() throws Exception {
+        JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + jmxPort + "/jmxrmi");
+        return JMXConnectorFactory.connect(url);
+    }
+
+    private void openUntil(int level) throws Exception {
+        Semaphore pending = new Semaphore(MAX_PENDING_HANDSHAKES);
+        List<CompletableFuture<WebSocket>> opening = new ArrayList<>();
+        for (int i = connections.size(); i < level; i++) {
+            pending.acquire();
+            CompletableFuture<WebSocket> future = clientFor(i).newWebSocketBuilder()
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .buildAsync(URI.create("ws://127.0.0.1:" + port + "/ws-raw/websocket"), new IdleListener())
+                    .whenComplete((webSocket, error) -> pending.release());
+            opening.add(future);
+        }
+        for (CompletableFuture<WebSocket> future : opening) {
+            try {
+                connections.add(future.get(60, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            }
+        }
+        // Let the history replay to the new sessions finish before measuring
+        Thread.sleep(5000);
+    }
+
+    private HttpClient clientFor(int index) throws Exception {
+        int source = index / CONNECTIONS_PER_SOURCE_ADDRESS;
+        while (clients.size() <= source) {
+            InetAddress address = InetAddress.getByAddress(new byte[] {127, 0, 0, (byte) (clients.size() + 1)});
+            clients.add(HttpClient.newBuilder().localAddress(address).build());
+        }
+        return clients.get(source);
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+            Thread.sleep(1000);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private int maxLevel() {
+        return levels.stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    // Reads and discards the history replay, then just stays connected
+    private static class IdleListener implements WebSocket.Listener {
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            webSocket.request(1);
+            return null;
+        }
+    }
+}
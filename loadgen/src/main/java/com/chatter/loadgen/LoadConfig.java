@@ -0,0 +1,99 @@
+package com.chatter.loadgen;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line options, all given as {@code --name=value}.
+ */
+public class LoadConfig {
+
+    private String target;
+    private String jwtSecret = "b5f59337a612a2a7dc07328f3e7d1a04722967c7f06df20a499a7d3f91ff2a7e";
+    private int connections = 1000;
+    private double stompFraction = 0.5;
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration rampUp = Duration.ofSeconds(10);
+    private double opsPerSecondPerUser = 0.2;
+    // An echo that has not arrived by then counts as an error
+    private Duration echoTimeout = Duration.ofSeconds(10);
+    private final Map<Operation, Integer> mix = new EnumMap<>(Map.of(
+            Operation.CHAT, 60,
+            Operation.TYPING, 25,
+            Operation.STATUS, 5,
+            Operation.FRIENDS, 10
+    ));
+
+    public static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "target" -> config.target = value;
+                case "jwt-secret" -> config.jwtSecret = value;
+                case "connections" -> config.connections = Integer.parseInt(value);
+                case "stomp-fraction" -> config.stompFraction = Double.parseDouble(value);
+                case "duration" -> config.duration = Duration.ofSeconds(Long.parseLong(value));
+                case "ramp-up" -> config.rampUp = Duration.ofSeconds(Long.parseLong(value));
+                case "rate" -> config.opsPerSecondPerUser = Double.parseDouble(value);
+                case "echo-timeout" -> config.echoTimeout = Duration.ofSeconds(Long.parseLong(value));
+                case "mix" -> config.parseMix(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return config;
+    }
+
+    // e.g. chat:60,typing:25,status:5,friends:10
+    private void parseMix(String value) {
+        mix.clear();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+    }
+
+    /**
+     * Null means start Chatter in-process on a random port.
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public String getJwtSecret() {
+        return jwtSecret;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public double getStompFraction() {
+        return stompFraction;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getRampUp() {
+        return rampUp;
+    }
+
+    public double getOpsPerSecondPerUser() {
+        return opsPerSecondPerUser;
+    }
+
+    public Duration getEchoTimeout() {
+        return echoTimeout;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+}
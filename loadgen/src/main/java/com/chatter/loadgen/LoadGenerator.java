@@ -0,0 +1,125 @@
+package com.chatter.loadgen;
+
+import com.chatter.ChatterApplication;
+import com.chatter.config.JwtConfig;
+import com.chatter.service.JwtService;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives Chatter with thousands of concurrent raw and STOMP WebSocket clients plus friend list
+ * REST calls, one virtual thread per client.
+ *
+ * <pre>
+ * java -jar target/chatter-loadgen-0.0.1-SNAPSHOT.jar --connections=5000 --duration=120 --rate=0.5
+ * </pre>
+ *
+ * Without {@code --target} the application is started in-process on a random port. Tokens are
+ * minted with {@link JwtService}, so Google sign-in is never involved.
+ */
+public class LoadGenerator {
+
+    private static final long REPORT_INTERVAL_SECONDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        if (config.getMix().values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix needs at least one operation with a positive weight");
+        }
+
+        ConfigurableApplicationContext embedded = null;
+        String baseUrl = config.getTarget();
+        JwtService jwtService;
+        if (baseUrl == null) {
+            embedded = startEmbedded(config);
+            baseUrl = "http://localhost:" + embedded.getEnvironment().getProperty("local.server.port");
+            jwtService = embedded.getBean(JwtService.class);
+        } else {
+            jwtService = standaloneJwtService(config.getJwtSecret());
+        }
+        System.out.println("Load target " + baseUrl + ": " + config.getConnections() + " connections for "
+                + config.getDuration().toSeconds() + " s, mix " + config.getMix());
+
+        Metrics metrics = new Metrics();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + config.getRampUp().toNanos() + config.getDuration().toNanos();
+        String target = baseUrl;
+        Thread rampUp = Thread.ofVirtual().start(() -> {
+            long pauseNanos = config.getRampUp().toNanos() / Math.max(config.getConnections(), 1);
+            int stompUsers = (int) Math.round(config.getConnections() * config.getStompFraction());
+            for (int i = 0; i < config.getConnections(); i++) {
+                boolean stomp = i < stompUsers;
+                String token = jwtService.generateToken(userEmail(i));
+                executor.submit(new VirtualUser(i, stomp, token, target, config, metrics,
+                        httpClient, webSocketClient, deadlineNanos));
+                try {
+                    TimeUnit.NANOSECONDS.sleep(pauseNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long lastReport = System.nanoTime();
+        while (System.nanoTime() < deadlineNanos) {
+            Thread.sleep(Math.min(TimeUnit.SECONDS.toMillis(REPORT_INTERVAL_SECONDS),
+                    Math.max(TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()), 1)));
+            long now = System.nanoTime();
+            System.out.printf("--- t=%ds%n", TimeUnit.NANOSECONDS.toSeconds(now - startNanos));
+            metrics.printInterval(System.out, (now - lastReport) / 1e9);
+            lastReport = now;
+        }
+
+        rampUp.join();
+        executor.shutdown();
+        // Users wait up to the echo timeout for their last messages before closing
+        executor.awaitTermination(30 + config.getEchoTimeout().toSeconds(), TimeUnit.SECONDS);
+        metrics.printInterval(System.out, (System.nanoTime() - lastReport) / 1e9);
+        metrics.printSummary(System.out, (System.nanoTime() - startNanos) / 1e9);
+
+        if (embedded != null) {
+            embedded.close();
+        }
+    }
+
+    static String userEmail(int index) {
+        return "loaduser" + index + "@loadgen.local";
+    }
+
+    private static ConfigurableApplicationContext startEmbedded(LoadConfig config) {
+        return SpringApplication.run(ChatterApplication.class,
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (config.getConnections() * 2 + 1000),
+                "--server.tomcat.threads.max=400",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.chatter=WARN",
+                "--logging.level.org.springframework.websocket=WARN",
+                // Nothing to drain gracefully at the end of a run
+                "--chatter.websocket.drain.max-reconnect-delay-ms=0",
+                "--chatter.websocket.drain.max-duration-ms=0");
+    }
+
+    static JwtService standaloneJwtService(String secret) {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(secret);
+        jwtConfig.setExpiration(TimeUnit.DAYS.toMillis(1));
+        JwtService jwtService = new JwtService();
+        new DirectFieldAccessor(jwtService).setPropertyValue("jwtConfig", jwtConfig);
+        return jwtService;
+    }
+}
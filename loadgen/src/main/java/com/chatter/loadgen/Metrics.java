@@ -0,0 +1,85 @@
+package com.chatter.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency histograms and error counts. Latencies are recorded in microseconds.
+ */
+public class Metrics {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> totals = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    public Metrics() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(MAX_LATENCY_MICROS, 3));
+            totals.put(operation, new Histogram(MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public void recordLatency(Operation operation, long startNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        recorders.get(operation).recordValue(Math.min(Math.max(micros, 0), MAX_LATENCY_MICROS));
+    }
+
+    public void recordError(Operation operation) {
+        errors.get(operation).increment();
+    }
+
+    /**
+     * Prints the interval since the last call and folds it into the run totals.
+     */
+    public synchronized void printInterval(PrintStream out, double seconds) {
+        out.printf("%-8s %10s %10s %10s %10s %10s%n", "op", "ops/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Operation operation : Operation.values()) {
+            Histogram interval = recorders.get(operation).getIntervalHistogram();
+            totals.get(operation).add(interval);
+            if (interval.getTotalCount() == 0 && errors.get(operation).sum() == 0) {
+                continue;
+            }
+            out.printf("%-8s %10.1f %10.2f %10.2f %10.2f %10d%n",
+                    operation.name().toLowerCase(),
+                    interval.getTotalCount() / seconds,
+                    interval.getValueAtPercentile(50) / 1000.0,
+                    interval.getValueAtPercentile(99) / 1000.0,
+                    interval.getMaxValue() / 1000.0,
+                    errors.get(operation).sum());
+        }
+    }
+
+    public synchronized void printSummary(PrintStream out, double seconds) {
+        out.println();
+        out.println("=== Summary over " + String.format("%.0f", seconds) + " s ===");
+        for (Operation operation : Operation.values()) {
+            Histogram total = totals.get(operation);
+            long errorCount = errors.get(operation).sum();
+            long attempts = total.getTotalCount() + errorCount;
+            if (attempts == 0) {
+                continue;
+            }
+            out.printf("%s: %d ok, %.1f ops/s, errors %.2f%%, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                    operation.name().toLowerCase(),
+                    total.getTotalCount(),
+                    total.getTotalCount() / seconds,
+                    100.0 * errorCount / attempts,
+                    total.getValueAtPercentile(50) / 1000.0,
+                    total.getValueAtPercentile(90) / 1000.0,
+                    total.getValueAtPercentile(99) / 1000.0,
+                    total.getValueAtPercentile(99.9) / 1000.0,
+                    total.getMaxValue() / 1000.0);
+            out.println("  latency distribution (ms):");
+            total.outputPercentileDistribution(out, 5, 1000.0);
+        }
+    }
+}
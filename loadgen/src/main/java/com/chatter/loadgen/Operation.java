@@ -0,0 +1,9 @@
+package com.chatter.loadgen;
+
+public enum Operation {
+    CONNECT,
+    CHAT,
+    TYPING,
+    STATUS,
+    FRIENDS
+}
@@ -0,0 +1,275 @@
+package com.chatter.loadgen;
+
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated client: a single raw or STOMP connection plus REST calls, issuing a random
+ * mix of operations with exponential think time between them. Chat, typing and status latency
+ * is measured from send until the broadcast echo arrives back on the same connection; an echo
+ * that does not arrive within the echo timeout is counted as an error.
+ */
+public class VirtualUser implements Runnable {
+
+    private static final String MARKER = "lg:";
+
+    private final int index;
+    private final boolean stomp;
+    private final String email;
+    private final String token;
+    private final String baseUrl;
+    private final LoadConfig config;
+    private final Metrics metrics;
+    private final HttpClient httpClient;
+    private final StandardWebSocketClient webSocketClient;
+    private final long deadlineNanos;
+    private final NavigableMap<Integer, Operation> mix = new TreeMap<>();
+    private final int mixTotal;
+    // Send time (also the message id) of every message still waiting for its echo
+    private final ConcurrentHashMap<Long, Operation> inFlight = new ConcurrentHashMap<>();
+
+    public VirtualUser(int index, boolean stomp, String token, String baseUrl, LoadConfig config, Metrics metrics,
+            HttpClient httpClient, StandardWebSocketClient webSocketClient, long deadlineNanos) {
+        this.index = index;
+        this.stomp = stomp;
+        this.email = LoadGenerator.userEmail(index);
+        this.token = token;
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.metrics = metrics;
+        this.httpClient = httpClient;
+        this.webSocketClient = webSocketClient;
+        this.deadlineNanos = deadlineNanos;
+
+        int total = 0;
+        for (Map.Entry<Operation, Integer> entry : config.getMix().entrySet()) {
+            if (entry.getValue() > 0) {
+                mix.put(total, entry.getKey());
+                total += entry.getValue();
+            }
+        }
+        this.mixTotal = total;
+    }
+
+    @Override
+    public void run() {
+        String webSocketUrl = baseUrl.replaceFirst("^http", "ws");
+        long start = System.nanoTime();
+        try {
+            if (stomp) {
+                runStomp(webSocketUrl + "/ws/websocket", start);
+            } else {
+                runRaw(webSocketUrl + "/ws-raw/websocket?token=" + token, start);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            metrics.recordError(Operation.CONNECT);
+        }
+    }
+
+    private void runRaw(String url, long start) throws Exception {
+        WebSocketSession session = webSocketClient.execute(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+                onEcho(message.getPayload(), Operation.CHAT);
+            }
+        }, new WebSocketHttpHeaders(), URI.create(url)).get(30, TimeUnit.SECONDS);
+        metrics.recordLatency(Operation.CONNECT, start);
+
+        try {
+            while (thinkUntilNext()) {
+                expireEchoes();
+                Operation operation = nextOperation();
+                switch (operation) {
+                    case CHAT -> {
+                        long sent = System.nanoTime();
+                        inFlight.put(sent, Operation.CHAT);
+                        session.sendMessage(new TextMessage("{\"sender\":\"" + email + "\",\"content\":\"" + content(sent) + "\"}"));
+                    }
+                    case FRIENDS -> callFriends();
+                    // The raw handler only understands chat messages; typing and status go over STOMP
+                    default -> { }
+                }
+            }
+            awaitEchoes();
+        } finally {
+            session.close();
+        }
+    }
+
+    private void runStomp(String url, long start) throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(webSocketClient);
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        // ChatController drops frames from sessions that did not authenticate on CONNECT
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        StompSession session = stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders,
+                        new StompSessionHandlerAdapter() { })
+                .get(30, TimeUnit.SECONDS);
+        metrics.recordLatency(Operation.CONNECT, start);
+
+        subscribe(session, "/topic/messages", Operation.CHAT);
+        subscribe(session, "/topic/typing", Operation.TYPING);
+        subscribe(session, "/topic/message-status", Operation.STATUS);
+
+        try {
+            while (thinkUntilNext()) {
+                expireEchoes();
+                Operation operation = nextOperation();
+                long sent = System.nanoTime();
+                switch (operation) {
+                    case CHAT -> send(session, "/app/chat", sent, operation, Map.of());
+                    case TYPING -> send(session, "/app/typing", sent, operation, Map.of("typing", true));
+                    case STATUS -> send(session, "/app/message-status", sent, operation, Map.of("messageStatus", "SEEN"));
+                    case FRIENDS -> callFriends();
+                    default -> { }
+                }
+            }
+            awaitEchoes();
+        } finally {
+            session.disconnect();
+        }
+    }
+
+    private void subscribe(StompSession session, String destination, Operation operation) {
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                Object content = ((Map<?, ?>) payload).get("content");
+                if (content != null) {
+                    onEcho(content.toString(), operation);
+                }
+            }
+        });
+    }
+
+    private void send(StompSession session, String destination, long sent, Operation operation, Map<String, Object> extra) {
+        inFlight.put(sent, operation);
+        Map<String, Object> payload = new HashMap<>(extra);
+        payload.put("sender", email);
+        payload.put("content", content(sent));
+        try {
+            session.send(destination, payload);
+        } catch (Exception e) {
+            inFlight.remove(sent);
+            metrics.recordError(operation);
+        }
+    }
+
+    private void callFriends() throws InterruptedException {
+        String path = ThreadLocalRandom.current().nextBoolean() ? "/api/friends/pending" : "/api/friends/accepted";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 200) {
+                metrics.recordLatency(Operation.FRIENDS, start);
+            } else {
+                metrics.recordError(Operation.FRIENDS);
+            }
+        } catch (IOException e) {
+            metrics.recordError(Operation.FRIENDS);
+        }
+    }
+
+    // Broadcasts reach every user, so cheaply skip everything that is not our own marker
+    private void onEcho(String text, Operation operation) {
+        String marker = MARKER + index + ":";
+        int at = text.indexOf(marker);
+        if (at < 0) {
+            return;
+        }
+        int from = at + marker.length();
+        int to = from;
+        while (to < text.length() && (Character.isDigit(text.charAt(to)) || text.charAt(to) == '-')) {
+            to++;
+        }
+        long sent = Long.parseLong(text.substring(from, to));
+        if (!inFlight.remove(sent, operation)) {
+            return;
+        }
+        if (System.nanoTime() - sent > config.getEchoTimeout().toNanos()) {
+            metrics.recordError(operation);
+        } else {
+            metrics.recordLatency(operation, sent);
+        }
+    }
+
+    private void expireEchoes() {
+        long expiredBefore = System.nanoTime() - config.getEchoTimeout().toNanos();
+        inFlight.forEach((sent, operation) -> {
+            if (sent - expiredBefore < 0 && inFlight.remove(sent, operation)) {
+                metrics.recordError(operation);
+            }
+        });
+    }
+
+    // Lets the last messages come back before closing, then counts what never did
+    private void awaitEchoes() throws InterruptedException {
+        long giveUp = System.nanoTime() + config.getEchoTimeout().toNanos();
+        while (!inFlight.isEmpty() && System.nanoTime() - giveUp < 0) {
+            Thread.sleep(50);
+        }
+        inFlight.forEach((sent, operation) -> {
+            if (inFlight.remove(sent, operation)) {
+                metrics.recordError(operation);
+            }
+        });
+    }
+
+    private String content(long sent) {
+        return MARKER + index + ":" + sent + " load test message";
+    }
+
+    private Operation nextOperation() {
+        return mix.floorEntry(ThreadLocalRandom.current().nextInt(mixTotal)).getValue();
+    }
+
+    // Exponential think time gives Poisson arrivals at the configured per-user rate
+    private boolean thinkUntilNext() throws InterruptedException {
+        double meanMillis = 1000.0 / config.getOpsPerSecondPerUser();
+        long pause = (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanMillis);
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (pause >= remainingMillis) {
+            Thread.sleep(Math.max(remainingMillis, 0));
+            return false;
+        }
+        Thread.sleep(pause);
+        return true;
+    }
+}
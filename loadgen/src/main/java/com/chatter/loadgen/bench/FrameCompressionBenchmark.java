@@ -0,0 +1,164 @@
+package com.chatter.loadgen.bench;
+
+import com.chatter.MessageEncoder;
+import com.chatter.model.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * CPU per broadcast against bytes on the wire for chat frames, at several fan-out sizes. One
+ * operation sends one frame to {@code fanOut} recipients:
+ * <ul>
+ *   <li>{@code uncompressed}: what goes out without permessage-deflate;</li>
+ *   <li>{@code perSessionContextTakeover}: what Tomcat does once permessage-deflate is negotiated,
+ *       one deflate stream per session that keeps its window between frames;</li>
+ *   <li>{@code sharedNoContextTakeover}: compressing once and sending the same bytes to everyone,
+ *       which is only valid when no session keeps a window between frames.</li>
+ * </ul>
+ * Wire bytes per frame for each mode are printed at setup. Frames are real encoder output for
+ * varied chat messages. Sync-flushed and with the trailing {@code 00 00 ff ff} dropped, as
+ * permessage-deflate sends them.
+ *
+ * <pre>
+ * mvn -f loadgen/pom.xml compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main FrameCompressionBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameCompressionBenchmark {
+
+    private static final int FRAMES = 1024;
+    private static final String[] WORDS = ("are we still on for lunch tomorrow I can book the usual place "
+            + "sounds good see you there running late ten minutes did you get the file I sent "
+            + "yes thanks looks great let me know when the build is green meeting moved to three").split(" ");
+    private static final String[] SENDERS = {"alice@gmail.com", "bob@gmail.com", "carol@outlook.com", "dave@example.org"};
+
+    @Param({"1", "10", "100", "1000"})
+    public int fanOut;
+
+    private byte[][] frames;
+    private Deflater[] sessions;
+    private Deflater shared;
+    private final byte[] output = new byte[64 * 1024];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        MessageEncoder encoder = new MessageEncoder(Jackson2ObjectMapperBuilder.json().build());
+        Random random = new Random(42);
+        frames = new byte[FRAMES][];
+        for (int i = 0; i < FRAMES; i++) {
+            frames[i] = encoder.encode(message(i, random)).getPayload().getBytes(StandardCharsets.UTF_8);
+        }
+        sessions = new Deflater[fanOut];
+        for (int i = 0; i < fanOut; i++) {
+            sessions[i] = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        shared = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        if (fanOut == 1) {
+            printWireBytes();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (Deflater session : sessions) {
+            session.end();
+        }
+        shared.end();
+    }
+
+    @Benchmark
+    public long uncompressed() {
+        return (long) nextFrame().length * fanOut;
+    }
+
+    @Benchmark
+    public long perSessionContextTakeover() {
+        byte[] frame = nextFrame();
+        long wireBytes = 0;
+        for (Deflater session : sessions) {
+            wireBytes += deflate(session, frame);
+        }
+        return wireBytes;
+    }
+
+    @Benchmark
+    public long sharedNoContextTakeover() {
+        byte[] frame = nextFrame();
+        shared.reset();
+        return (long) deflate(shared, frame) * fanOut;
+    }
+
+    private byte[] nextFrame() {
+        next = (next + 1) % FRAMES;
+        return frames[next];
+    }
+
+    private int deflate(Deflater deflater, byte[] frame) {
+        deflater.setInput(frame);
+        int total = 0;
+        int written;
+        do {
+            written = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+            total += written;
+        } while (written == output.length);
+        return total - 4;
+    }
+
+    private void printWireBytes() {
+        Deflater withContext = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        Deflater withoutContext = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        long raw = 0;
+        long contextTakeover = 0;
+        long noContextTakeover = 0;
+        for (byte[] frame : frames) {
+            raw += frame.length;
+            contextTakeover += deflate(withContext, frame);
+            withoutContext.reset();
+            noContextTakeover += deflate(withoutContext, frame);
+        }
+        withContext.end();
+        withoutContext.end();
+        System.out.printf("%nWire bytes per frame: uncompressed %.1f, context takeover %.1f, no context takeover %.1f%n",
+                (double) raw / FRAMES, (double) contextTakeover / FRAMES, (double) noContextTakeover / FRAMES);
+    }
+
+    private static Message message(long id, Random random) {
+        StringBuilder content = new StringBuilder();
+        int words = 2 + random.nextInt(20);
+        for (int i = 0; i < words; i++) {
+            content.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        Message message = new Message();
+        message.setId(1_000_000 + id);
+        message.setSender(SENDERS[random.nextInt(SENDERS.length)]);
+        message.setContent(content.toString());
+        message.setMessageStatus("SENT");
+        message.setTimestamp(LocalDateTime.of(2024, 3, 1, 12, 0).plusSeconds(id * 7 + random.nextInt(7)));
+        return message;
+    }
+}
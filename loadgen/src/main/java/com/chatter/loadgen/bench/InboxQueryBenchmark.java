@@ -0,0 +1,177 @@
+package com.chatter.loadgen.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of listing one user's conversations with last message and unread count, computed with
+ * GROUP BY over the message table versus read from the materialized inbox table. Uses the same
+ * columns as {@code db/schema.sql} in an H2 file database under {@code target/}, which is kept
+ * between runs because loading 10M messages takes a while:
+ *
+ * <pre>
+ * mvn -f loadgen/pom.xml compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main InboxQueryBenchmark"
+ * </pre>
+ *
+ * The message table gets sender and recipient indexes the application does not have, so the
+ * GROUP BY is measured at its best. Every user writes to the {@code PEERS_PER_USER} (50) users
+ * after them on the ring and hears from the 50 before them, so has about 100 conversations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class InboxQueryBenchmark {
+
+    private static final int INSERT_BATCH = 1_000_000;
+    private static final int PEERS_PER_USER = 50;
+
+    private static final String GROUP_BY_QUERY =
+            "SELECT c.peer, m.sender, m.content, m.timestamp, c.unread FROM ("
+            + " SELECT CASE WHEN sender = ? THEN recipient ELSE sender END AS peer, MAX(id) AS last_id,"
+            + " SUM(CASE WHEN recipient = ? AND message_status <> 'SEEN' THEN 1 ELSE 0 END) AS unread"
+            + " FROM message WHERE sender = ? OR recipient = ? GROUP BY peer) c"
+            + " JOIN message m ON m.id = c.last_id ORDER BY m.timestamp DESC";
+
+    private static final String INBOX_QUERY =
+            "SELECT peer_id, last_sender, snippet, last_timestamp, message_count - read_count FROM inbox"
+            + " WHERE owner_id = ? ORDER BY last_timestamp DESC";
+
+    @Param({"10000000"})
+    public int messages;
+
+    @Param({"10000"})
+    public int users;
+
+    private Connection connection;
+    private PreparedStatement groupBy;
+    private PreparedStatement inbox;
+    private int nextUser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                "jdbc:h2:file:./target/inbox-bench-" + messages + "-" + users + ";CACHE_SIZE=1048576", "sa", "");
+        if (!loaded()) {
+            load();
+        }
+        groupBy = connection.prepareStatement(GROUP_BY_QUERY);
+        inbox = connection.prepareStatement(INBOX_QUERY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void groupByMessages(Blackhole blackhole) throws SQLException {
+        String user = user(nextUser());
+        for (int i = 1; i <= 4; i++) {
+            groupBy.setString(i, user);
+        }
+        consume(groupBy, blackhole);
+    }
+
+    @Benchmark
+    public void materializedInbox(Blackhole blackhole) throws SQLException {
+        inbox.setString(1, user(nextUser()));
+        consume(inbox, blackhole);
+    }
+
+    private int nextUser() {
+        nextUser = (nextUser + 7919) % users;
+        return nextUser;
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole blackhole) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                blackhole.consume(rows.getString(1));
+                blackhole.consume(rows.getString(2));
+                blackhole.consume(rows.getString(3));
+                blackhole.consume(rows.getTimestamp(4));
+                blackhole.consume(rows.getLong(5));
+            }
+        }
+    }
+
+    private boolean loaded() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM message")) {
+            return rows.next() && rows.getLong(1) == messages;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void load() throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS message");
+            statement.execute("DROP TABLE IF EXISTS inbox");
+            statement.execute("CREATE TABLE message (id BIGINT PRIMARY KEY, sender VARCHAR(255), content VARCHAR(255),"
+                    + " recipient VARCHAR(255), message_status VARCHAR(255), is_typing BOOLEAN NOT NULL,"
+                    + " timestamp TIMESTAMP(6), attachment_id VARCHAR(64))");
+            statement.execute("CREATE TABLE inbox (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                    + " owner_id VARCHAR(255) NOT NULL, peer_id VARCHAR(255) NOT NULL, last_message_id BIGINT,"
+                    + " last_sender VARCHAR(255), snippet VARCHAR(140), last_timestamp TIMESTAMP(6),"
+                    + " message_count BIGINT NOT NULL, read_count BIGINT NOT NULL,"
+                    + " CONSTRAINT uk_inbox_owner_peer UNIQUE (owner_id, peer_id))");
+
+            System.out.println("Loading " + messages + " messages between " + users + " users");
+            for (long from = 1; from <= messages; from += INSERT_BATCH) {
+                long to = Math.min(from + INSERT_BATCH - 1, messages);
+                // Sender and a recipient 1..PEERS_PER_USER places further round the user ring
+                statement.execute("INSERT INTO message SELECT X,"
+                        + " 'user' || MOD(X, " + users + ") || '@bench.local', 'message ' || X,"
+                        + " 'user' || MOD(MOD(X, " + users + ") + 1 + MOD(X / " + users + ", " + PEERS_PER_USER + "), " + users + ") || '@bench.local',"
+                        + " CASE WHEN MOD(X, 3) = 0 THEN 'SENT' ELSE 'SEEN' END, FALSE,"
+                        + " DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), NULL"
+                        + " FROM SYSTEM_RANGE(" + from + ", " + to + ")");
+                connection.commit();
+            }
+            statement.execute("CREATE INDEX idx_message_sender ON message (sender)");
+            statement.execute("CREATE INDEX idx_message_recipient ON message (recipient)");
+
+            // What InboxService would have built up message by message
+            statement.execute("INSERT INTO inbox (owner_id, peer_id, last_message_id, message_count, read_count)"
+                    + " SELECT owner, peer, MAX(id), COUNT(*), SUM(CASE WHEN own OR message_status = 'SEEN' THEN 1 ELSE 0 END) FROM ("
+                    + " SELECT sender AS owner, recipient AS peer, id, TRUE AS own, message_status FROM message"
+                    + " UNION ALL SELECT recipient, sender, id, FALSE, message_status FROM message)"
+                    + " GROUP BY owner, peer");
+            statement.execute("UPDATE inbox i SET (last_sender, snippet, last_timestamp) ="
+                    + " (SELECT m.sender, m.content, m.timestamp FROM message m WHERE m.id = i.last_message_id)");
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static String user(int index) {
+        return "user" + index + "@bench.local";
+    }
+}
@@ -0,0 +1,74 @@
+package com.chatter.loadgen.bench;
+
+import com.chatter.MessageEncoder;
+import com.chatter.model.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.socket.TextMessage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of the old and new chat frame encoding. Allocation per message shows up as
+ * {@code gc.alloc.rate.norm} with the GC profiler:
+ *
+ * <pre>
+ * mvn -f loadgen/pom.xml compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main MessageEncodingBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageEncodingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private MessageEncoder messageEncoder;
+    private Message saved;
+
+    @Setup
+    public void setUp() {
+        // Configured the way Spring Boot configures the application's mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        messageEncoder = new MessageEncoder(objectMapper);
+
+        saved = message(42L);
+    }
+
+    // What ChatWebSocketHandler used to do for every message and every history replay
+    @Benchmark
+    public TextMessage objectMapperPerMessage() throws Exception {
+        return new TextMessage(objectMapper.writeValueAsString(saved));
+    }
+
+    // Writer resolved once, written straight to a String
+    @Benchmark
+    public TextMessage encoder() throws Exception {
+        return messageEncoder.encode(saved);
+    }
+
+    private static Message message(Long id) {
+        Message message = new Message();
+        message.setId(id);
+        message.setSender("alice@gmail.com");
+        message.setContent("Are we still on for lunch tomorrow? I can book the usual place.");
+        message.setMessageStatus("SENT");
+        message.setTimestamp(LocalDateTime.now(ZoneOffset.UTC));
+        return message;
+    }
+}
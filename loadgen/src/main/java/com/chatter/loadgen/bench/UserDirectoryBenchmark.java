@@ -0,0 +1,91 @@
+package com.chatter.loadgen.bench;
+
+import com.chatter.model.User;
+import com.chatter.model.UserProfile;
+import com.chatter.service.UserDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead and batch profile lookup against a directory of one million users with names
+ * drawn from small first- and last-name pools, so short prefixes match many users:
+ *
+ * <pre>
+ * mvn -f loadgen/pom.xml compile exec:exec -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main UserDirectoryBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class UserDirectoryBenchmark {
+
+    private static final String[] FIRST = {"alice", "alan", "bob", "carol", "dave", "erin", "frank", "grace",
+            "heidi", "ivan", "judy", "mallory", "nina", "oscar", "peggy", "quentin", "rupert", "sybil", "trent", "victor"};
+    private static final String[] LAST = {"smith", "jones", "taylor", "brown", "williams", "wilson", "johnson",
+            "davies", "robinson", "wright", "thompson", "evans", "walker", "white", "roberts", "green"};
+
+    @Param({"1000000"})
+    public int users;
+
+    private UserDirectory userDirectory;
+    private final List<String> prefixes = new ArrayList<>();
+    private final List<List<String>> batches = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        userDirectory = new UserDirectory();
+        String[] emails = new String[users];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < users; i++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setName(first + " " + last);
+            user.setEmail(first + "." + last + (i + 1) + "@example.com");
+            userDirectory.add(user);
+            emails[i] = user.getEmail();
+        }
+        for (int i = 0; i < 1024; i++) {
+            String word = random.nextBoolean() ? FIRST[random.nextInt(FIRST.length)] : LAST[random.nextInt(LAST.length)];
+            prefixes.add(word.substring(0, 1 + random.nextInt(3)));
+            List<String> batch = new ArrayList<>();
+            for (int j = 0; j < 100; j++) {
+                batch.add(emails[random.nextInt(users)]);
+            }
+            batches.add(batch);
+        }
+    }
+
+    // What the typeahead box asks for after each keystroke
+    @Benchmark
+    public List<UserProfile> searchTop10() {
+        return userDirectory.search(prefixes.get(next++ & 1023), 10);
+    }
+
+    // Resolving the senders of a page of messages
+    @Benchmark
+    public Map<String, UserProfile> batchOf100() {
+        return userDirectory.findByEmails(batches.get(next++ & 1023));
+    }
+}
@@ -1,67 +1,143 @@
 package com.chatter;
 
+import com.chatter.config.HighDensityConfig;
 import com.chatter.model.Message;
 import com.chatter.service.MessageService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.chatter.service.UserSessionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.lang.NonNull;
 
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class ChatWebSocketHandler extends TextWebSocketHandler {
-    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final Logger log = LoggerFactory.getLogger(ChatWebSocketHandler.class);
+
+    // The decorated session is stored on the raw one so it can be found again on close
+    private static final String OUTBOUND_ATTRIBUTE = "chatter.outbound";
+
+    private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean firstConnectionAccepted = new AtomicBoolean();
 
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private MessageEncoder messageEncoder;
+
+    @Autowired
+    private ConnectionDrainer connectionDrainer;
+
+    @Autowired
+    private UserSessionRegistry userSessionRegistry;
+
+    @Autowired
+    private HighDensityConfig highDensityConfig;
+
+    @Value("${chatter.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${chatter.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
     @Override
-    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
-        sessions.put(session.getId(), session);
-        // Send last 50 messages to new user
+    public void afterConnectionEstablished(@NonNull WebSocketSession rawSession) {
+        WebSocketSession session = decorate(rawSession);
+        rawSession.getAttributes().put(OUTBOUND_ATTRIBUTE, session);
+        sessions.add(session);
+        connectionDrainer.track(session);
+        userSessionRegistry.register(session);
+        if (firstConnectionAccepted.compareAndSet(false, true) && log.isDebugEnabled()) {
+            log.debug("First WebSocket accepted {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+        // Replay the public room's latest messages; direct messages are never replayed here
         try {
-            messageService.getLastMessages().forEach(msg -> {
+            List<Message> history = messageService.getLastMessages();
+            for (Message msg : history) {
                 try {
-                    String messageJson = objectMapper.writeValueAsString(msg);
-                    System.out.println("Sending message: " + messageJson); // Debug log
-                    session.sendMessage(new TextMessage(messageJson));
+                    session.sendMessage(messageEncoder.encode(msg));
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    log.warn("Could not send history message {} to {}", msg.getId(), session.getId(), e);
                 }
-            });
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Could not send history to {}", session.getId(), e);
         }
     }
 
     @Override
     public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
-        sessions.remove(session.getId());
+        Object outbound = session.getAttributes().remove(OUTBOUND_ATTRIBUTE);
+        if (outbound != null) {
+            sessions.remove(outbound);
+        }
+        connectionDrainer.untrack(session);
+        userSessionRegistry.unregister(session);
     }
 
     @Override
     protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) throws Exception {
+        // The sender is whoever the handshake token named, never the payload's claim
+        String sender = (String) session.getAttributes().get(UserSessionRegistry.USER_ATTRIBUTE);
+        if (sender == null) {
+            log.debug("Dropped chat message from an unauthenticated session {}", session.getId());
+            outbound(session).sendMessage(messageEncoder.encodeError("Sign in to send messages"));
+            return;
+        }
+
         // Parse the message
-        Message chatMessage = objectMapper.readValue(message.getPayload(), Message.class);
-        
-        // Save the message to database
-        Message savedMessage = messageService.saveMessage(chatMessage.getSender(), chatMessage.getContent());
+        Message chatMessage = messageEncoder.decode(message.getPayload());
         
+        // Save the message to database; a bad attachment only rejects this frame
+        Message savedMessage;
+        try {
+            savedMessage = messageService.saveMessage(
+                    sender, chatMessage.getContent(), chatMessage.getAttachmentId(), chatMessage.getRecipient());
+        } catch (IllegalArgumentException e) {
+            outbound(session).sendMessage(messageEncoder.encodeError(e.getMessage()));
+            return;
+        }
+
+        TextMessage frame = messageEncoder.encode(savedMessage);
+        String recipient = savedMessage.getRecipient();
+        if (recipient != null && !recipient.isEmpty()) {
+            // A direct message only reaches its two participants' sessions
+            userSessionRegistry.sendToUser(sender, frame);
+            if (!recipient.equals(sender)) {
+                userSessionRegistry.sendToUser(recipient, frame);
+            }
+            return;
+        }
+
         // Broadcast the message to all connected clients
-        String messageJson = objectMapper.writeValueAsString(savedMessage);
-        System.out.println("Broadcasting message: " + messageJson); // Debug log
-        for (WebSocketSession webSocketSession : sessions.values()) {
-            webSocketSession.sendMessage(new TextMessage(messageJson));
+        for (WebSocketSession webSocketSession : sessions) {
+            webSocketSession.sendMessage(frame);
+        }
+    }
+
+    private static WebSocketSession outbound(WebSocketSession rawSession) {
+        Object outbound = rawSession.getAttributes().get(OUTBOUND_ATTRIBUTE);
+        return outbound != null ? (WebSocketSession) outbound : rawSession;
+    }
+
+    // Both decorators serialize concurrent broadcasts to a session and queue behind slow clients
+    private WebSocketSession decorate(WebSocketSession rawSession) {
+        if (highDensityConfig.isEnabled()) {
+            return new CompactWebSocketSession(rawSession, sendTimeLimitMs, sendBufferSizeLimit);
         }
+        return new ConcurrentWebSocketSessionDecorator(rawSession, sendTimeLimitMs, sendBufferSizeLimit);
     }
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package com.chatter;
 
+import com.chatter.config.HighDensityConfig;
+import com.chatter.config.JwtHandshakeInterceptor;
+import com.chatter.config.PerMessageDeflateHandshakeHandler;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
@@ -10,17 +15,33 @@ import org.springframework.lang.NonNull;
 
 @SpringBootApplication
 @EnableWebSocket
+@EnableScheduling
 public class ChatterApplication implements WebSocketConfigurer {
 
+    @Autowired
+    private ConnectionDrainer connectionDrainer;
+
+    @Autowired
+    private JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    @Autowired
+    private HighDensityConfig highDensityConfig;
+
+    @Autowired
+    private PerMessageDeflateHandshakeHandler handshakeHandler;
+
     public static void main(String[] args) {
         SpringApplication.run(ChatterApplication.class, args);
     }
 
+    // STOMP owns /ws (WebSocketConfig), so plain JSON frames get their own path
     @Override
     public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
-        registry.addHandler(chatWebSocketHandler(), "/ws")
+        highDensityConfig.applyTo(registry.addHandler(chatWebSocketHandler(), "/ws-raw")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(connectionDrainer, jwtHandshakeInterceptor)
                 .setAllowedOrigins("http://localhost:5173", "http://localhost:5174")
-                .withSockJS();
+                .withSockJS());
     }
 
     @Bean
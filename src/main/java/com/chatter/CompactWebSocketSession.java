@@ -0,0 +1,129 @@
+package com.chatter;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound side of a raw chat session in high-density mode. Does the job of
+ * {@link org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator} (one sender
+ * at a time, queue behind slow clients, give up on stuck ones) but only creates its queue while
+ * a send is in progress and another message arrives behind it, and uses its own monitor instead
+ * of two locks. That is about 56 bytes of its own per idle session against about 410 for the
+ * Spring decorator. It still wraps the full delegate, so Tomcat's session and buffers are
+ * untouched and remain most of what a connection costs.
+ */
+public class CompactWebSocketSession extends WebSocketSessionDecorator {
+
+    private static final AtomicLong SERIALS = new AtomicLong();
+
+    private final long serial = SERIALS.incrementAndGet();
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+
+    // Guarded by this
+    private ArrayDeque<WebSocketMessage<?>> backlog;
+    private int backlogBytes;
+    private long sendStartMillis;
+    private boolean sending;
+    private boolean limitExceeded;
+
+    public CompactWebSocketSession(WebSocketSession delegate, int sendTimeLimitMs, int bufferSizeLimit) {
+        super(delegate);
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    public long getSerial() {
+        return serial;
+    }
+
+    public synchronized int getBufferSize() {
+        return backlogBytes;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        synchronized (this) {
+            if (limitExceeded) {
+                return;
+            }
+            if (sending) {
+                if (backlogBytes + message.getPayloadLength() > bufferSizeLimit
+                        || System.currentTimeMillis() - sendStartMillis > sendTimeLimitMs) {
+                    limitExceeded = true;
+                    backlog = null;
+                    backlogBytes = 0;
+                } else {
+                    if (backlog == null) {
+                        backlog = new ArrayDeque<>(4);
+                    }
+                    backlog.add(message);
+                    backlogBytes += message.getPayloadLength();
+                    return;
+                }
+            } else {
+                sending = true;
+                sendStartMillis = System.currentTimeMillis();
+            }
+        }
+        if (limitExceeded) {
+            // Another thread is stuck writing to this client; a broadcast must not wait for it
+            closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+
+        WebSocketMessage<?> next = message;
+        try {
+            while (next != null) {
+                getDelegate().sendMessage(next);
+                synchronized (this) {
+                    next = backlog != null ? backlog.poll() : null;
+                    if (next != null) {
+                        backlogBytes -= next.getPayloadLength();
+                        sendStartMillis = System.currentTimeMillis();
+                    } else {
+                        // Drop the queue as soon as it drains so idle sessions hold nothing
+                        backlog = null;
+                        sending = false;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                backlog = null;
+                backlogBytes = 0;
+                sending = false;
+            }
+            throw e;
+        }
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (IOException e) {
+            // Already going away
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompactWebSocketSession session && session.serial == serial;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(serial);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactWebSocketSession[" + serial + ", " + getDelegate() + "]";
+    }
+}
@@ -0,0 +1,161 @@
+package com.chatter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closes WebSocket sessions in paced waves when the node shuts down, so clients do not all
+ * reconnect (and reload history) at the same moment. Each session is closed with
+ * {@link #DRAIN_CLOSE_CODE} and a reason of the form {@code reconnect-after-ms=<delay>} carrying
+ * a random delay the client should wait before reconnecting. New handshakes are refused with
+ * 503 as soon as draining starts. Each wave waits for its sessions' outbound queues together,
+ * and no wave waits past the overall drain deadline.
+ */
+@Component
+public class ConnectionDrainer implements HandshakeInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionDrainer.class);
+
+    public static final int DRAIN_CLOSE_CODE = 4001;
+    public static final String RECONNECT_REASON_PREFIX = "reconnect-after-ms=";
+
+    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private volatile boolean draining;
+
+    @Value("${chatter.websocket.drain.wave-size:200}")
+    private int waveSize;
+
+    @Value("${chatter.websocket.drain.wave-interval-ms:1000}")
+    private long waveIntervalMs;
+
+    @Value("${chatter.websocket.drain.max-duration-ms:20000}")
+    private long maxDurationMs;
+
+    @Value("${chatter.websocket.drain.max-reconnect-delay-ms:30000}")
+    private long maxReconnectDelayMs;
+
+    @Value("${chatter.websocket.drain.flush-timeout-ms:2000}")
+    private long flushTimeoutMs;
+
+    public void track(WebSocketSession session) {
+        sessions.put(session.getId(), session);
+    }
+
+    public void untrack(WebSocketSession session) {
+        sessions.remove(session.getId());
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    // Runs before the lifecycle processor stops the brokers and the web server
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        drain();
+    }
+
+    public void drain() {
+        draining = true;
+        List<WebSocketSession> remaining = new ArrayList<>(sessions.values());
+        if (remaining.isEmpty()) {
+            return;
+        }
+        Collections.shuffle(remaining);
+
+        long deadline = System.currentTimeMillis() + maxDurationMs;
+        int waves = (remaining.size() + waveSize - 1) / waveSize;
+        long interval = waves > 1 ? Math.min(waveIntervalMs, maxDurationMs / (waves - 1)) : 0;
+        log.info("Draining {} WebSocket sessions in {} waves", remaining.size(), waves);
+
+        for (int wave = 0; wave < waves; wave++) {
+            if (wave > 0) {
+                sleep(Math.min(interval, deadline - System.currentTimeMillis()));
+            }
+            int from = wave * waveSize;
+            int to = Math.min(from + waveSize, remaining.size());
+            List<WebSocketSession> batch = remaining.subList(from, to);
+            awaitFlush(batch, Math.min(System.currentTimeMillis() + flushTimeoutMs, deadline));
+            for (WebSocketSession session : batch) {
+                close(session);
+            }
+        }
+    }
+
+    private void close(WebSocketSession session) {
+        if (!session.isOpen()) {
+            return;
+        }
+        long delay = maxReconnectDelayMs > 0 ? ThreadLocalRandom.current().nextLong(maxReconnectDelayMs + 1) : 0;
+        try {
+            session.close(new CloseStatus(DRAIN_CLOSE_CODE, RECONNECT_REASON_PREFIX + delay));
+        } catch (Exception e) {
+            log.debug("Could not close WebSocket session {} while draining", session.getId(), e);
+        }
+    }
+
+    // Let messages already queued for the wave go out before the close frames, up to the deadline
+    private static void awaitFlush(List<WebSocketSession> batch, long deadline) {
+        while (System.currentTimeMillis() < deadline
+                && batch.stream().anyMatch(session -> session.isOpen() && bufferSize(session) > 0)) {
+            sleep(10);
+        }
+    }
+
+    private static int bufferSize(WebSocketSession session) {
+        if (session instanceof ConcurrentWebSocketSessionDecorator decorator) {
+            return decorator.getBufferSize();
+        }
+        if (session instanceof CompactWebSocketSession compact) {
+            return compact.getBufferSize();
+        }
+        return 0;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+        if (draining) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, maxReconnectDelayMs / 1000)));
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler, Exception exception) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.chatter;
+
+import com.chatter.model.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns chat messages into WebSocket frames. Writers are resolved once from the application's
+ * ObjectMapper and write straight to a String, which the container encodes once when it sends
+ * the frame. A broadcast encodes its frame once and hands the same TextMessage to every
+ * session. Compression is left to permessage-deflate, which the container negotiates per
+ * connection.
+ */
+@Component
+public class MessageEncoder {
+
+    private final ObjectWriter messageWriter;
+    private final ObjectWriter errorWriter;
+    private final ObjectReader messageReader;
+
+    public MessageEncoder(ObjectMapper objectMapper) {
+        this.messageWriter = objectMapper.writerFor(Message.class);
+        this.errorWriter = objectMapper.writerFor(new TypeReference<Map<String, String>>() { });
+        this.messageReader = objectMapper.readerFor(Message.class);
+    }
+
+    public Message decode(String json) throws IOException {
+        return messageReader.readValue(json);
+    }
+
+    public TextMessage encode(Message message) throws IOException {
+        return new TextMessage(messageWriter.writeValueAsString(message));
+    }
+
+    // {"type":"error","error":...} answers one rejected client frame without closing the session
+    public TextMessage encodeError(String error) throws IOException {
+        Map<String, String> frame = new LinkedHashMap<>();
+        frame.put("type", "error");
+        frame.put("error", error);
+        return new TextMessage(errorWriter.writeValueAsString(frame));
+    }
+}
@@ -0,0 +1,99 @@
+package com.chatter.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.SockJsServiceRegistration;
+
+/**
+ * Settings for hosting many mostly idle WebSocket connections per node. Every size here is
+ * paid per open connection, so the defaults trade headroom for large frames against heap.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chatter.websocket.high-density")
+public class HighDensityConfig {
+    private boolean enabled = false;
+    // Tomcat allocates both message buffers up front for every session (text is a char buffer).
+    // Only raw sessions stay at this size; STOMP raises its sessions to 16,640 chars
+    private int maxTextMessageBufferSize = 4096;
+    private int maxBinaryMessageBufferSize = 1024;
+    // NIO read and write buffers of every connection, 8 KB each by default
+    private int socketBufferSize = 2048;
+    private int maxConnections = 120_000;
+    // Streaming transports restart the response after this many bytes, freeing what it buffered
+    private int sockJsStreamBytesLimit = 64 * 1024;
+    private int sockJsHttpMessageCacheSize = 20;
+    private long sockJsDisconnectDelayMs = 2000;
+
+    public void applyTo(SockJsServiceRegistration registration) {
+        if (!enabled) {
+            return;
+        }
+        registration.setStreamBytesLimit(sockJsStreamBytesLimit)
+                .setHttpMessageCacheSize(sockJsHttpMessageCacheSize)
+                .setDisconnectDelay(sockJsDisconnectDelayMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxTextMessageBufferSize() {
+        return maxTextMessageBufferSize;
+    }
+
+    public void setMaxTextMessageBufferSize(int maxTextMessageBufferSize) {
+        this.maxTextMessageBufferSize = maxTextMessageBufferSize;
+    }
+
+    public int getMaxBinaryMessageBufferSize() {
+        return maxBinaryMessageBufferSize;
+    }
+
+    public void setMaxBinaryMessageBufferSize(int maxBinaryMessageBufferSize) {
+        this.maxBinaryMessageBufferSize = maxBinaryMessageBufferSize;
+    }
+
+    public int getSocketBufferSize() {
+        return socketBufferSize;
+    }
+
+    public void setSocketBufferSize(int socketBufferSize) {
+        this.socketBufferSize = socketBufferSize;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getSockJsStreamBytesLimit() {
+        return sockJsStreamBytesLimit;
+    }
+
+    public void setSockJsStreamBytesLimit(int sockJsStreamBytesLimit) {
+        this.sockJsStreamBytesLimit = sockJsStreamBytesLimit;
+    }
+
+    public int getSockJsHttpMessageCacheSize() {
+        return sockJsHttpMessageCacheSize;
+    }
+
+    public void setSockJsHttpMessageCacheSize(int sockJsHttpMessageCacheSize) {
+        this.sockJsHttpMessageCacheSize = sockJsHttpMessageCacheSize;
+    }
+
+    public long getSockJsDisconnectDelayMs() {
+        return sockJsDisconnectDelayMs;
+    }
+
+    public void setSockJsDisconnectDelayMs(long sockJsDisconnectDelayMs) {
+        this.sockJsDisconnectDelayMs = sockJsDisconnectDelayMs;
+    }
+}
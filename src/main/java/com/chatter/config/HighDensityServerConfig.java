@@ -0,0 +1,39 @@
+package com.chatter.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * Shrinks the per-connection buffers of Tomcat and its WebSocket container. Tomcat's own
+ * WebSocket read/write buffers are sized by the {@code org.apache.tomcat.websocket.DEFAULT_BUFFER_SIZE}
+ * system property, which has to be given on the command line.
+ */
+@Configuration
+@ConditionalOnProperty(name = "chatter.websocket.high-density.enabled", havingValue = "true")
+public class HighDensityServerConfig {
+
+    // These are the container defaults every session starts with. Raw sessions keep them, so
+    // larger raw frames are refused with 1009 (too big). STOMP sessions are not capped: Spring's
+    // StompSubProtocolHandler raises its own sessions to 16,640 chars when they start, and
+    // Tomcat resizes the buffer at their first frame (see HighDensityWebSocketTests).
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer(HighDensityConfig config) {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(config.getMaxTextMessageBufferSize());
+        container.setMaxBinaryMessageBufferSize(config.getMaxBinaryMessageBufferSize());
+        return container;
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> highDensityTomcatCustomizer(HighDensityConfig config) {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            connector.setProperty("maxConnections", String.valueOf(config.getMaxConnections()));
+            connector.setProperty("socket.appReadBufSize", String.valueOf(config.getSocketBufferSize()));
+            connector.setProperty("socket.appWriteBufSize", String.valueOf(config.getSocketBufferSize()));
+        });
+    }
+}
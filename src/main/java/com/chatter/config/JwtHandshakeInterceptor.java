@@ -0,0 +1,52 @@
+package com.chatter.config;
+
+import com.chatter.service.JwtService;
+import com.chatter.service.UserSessionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Browsers cannot set headers on a WebSocket handshake, so the JWT comes as {@code ?token=}.
+ * A valid token ties the session to the user, who then sends as that user and receives their
+ * pushed events and direct messages; without one the session can only read the public chat.
+ */
+@Component
+public class JwtHandshakeInterceptor implements HandshakeInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(JwtHandshakeInterceptor.class);
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Override
+    public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+        if (token == null || token.isEmpty()) {
+            return true;
+        }
+        try {
+            String userEmail = jwtService.extractUsername(token);
+            if (userEmail != null && jwtService.isTokenValid(token, userEmail)) {
+                attributes.put(UserSessionRegistry.USER_ATTRIBUTE, userEmail);
+            }
+        } catch (Exception e) {
+            log.debug("WebSocket token rejected: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+            @NonNull WebSocketHandler wsHandler, Exception exception) {
+    }
+}
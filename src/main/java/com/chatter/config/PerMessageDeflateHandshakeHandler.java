@@ -0,0 +1,36 @@
+package com.chatter.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
+
+/**
+ * Lets permessage-deflate be switched off. With it, Tomcat keeps one deflate stream per
+ * session, so every frame is compressed once per recipient and a broadcast to a large room
+ * costs CPU in proportion to its size (see FrameCompressionBenchmark in loadgen). Nodes that
+ * mostly fan out to big rooms can trade bandwidth back for CPU here.
+ */
+@Component
+public class PerMessageDeflateHandshakeHandler extends DefaultHandshakeHandler {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    @Value("${chatter.websocket.permessage-deflate.enabled:true}")
+    private boolean enabled = true;
+
+    @Override
+    @NonNull
+    protected List<WebSocketExtension> filterRequestedExtensions(@NonNull ServerHttpRequest request,
+            @NonNull List<WebSocketExtension> requestedExtensions, @NonNull List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> extensions = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (enabled) {
+            return extensions;
+        }
+        return extensions.stream().filter(extension -> !PERMESSAGE_DEFLATE.equals(extension.getName())).toList();
+    }
+}
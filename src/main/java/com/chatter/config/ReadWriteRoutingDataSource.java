@@ -0,0 +1,32 @@
+package com.chatter.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the lookup happens after the
+ * transaction has been marked read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaConsistencyTracker consistencyTracker;
+
+    public ReadWriteRoutingDataSource(ReplicaConsistencyTracker consistencyTracker) {
+        this.consistencyTracker = consistencyTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !consistencyTracker.isPinnedToPrimary()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
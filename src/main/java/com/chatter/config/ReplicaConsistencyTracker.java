@@ -0,0 +1,70 @@
+package com.chatter.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers who wrote recently so their next reads can skip the replica.
+ * A read-only transaction that is pinned here is routed to the primary
+ * until it completes. Writes older than the window are swept out
+ * periodically, so the map only holds users who wrote recently.
+ */
+@Component
+public class ReplicaConsistencyTracker {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final ConcurrentHashMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long readYourWritesWindowMs;
+
+    public ReplicaConsistencyTracker(
+            @Value("${chatter.datasource.replica.read-your-writes-window-ms:5000}") long readYourWritesWindowMs) {
+        this.readYourWritesWindowMs = readYourWritesWindowMs;
+    }
+
+    public void recordWrite(String key) {
+        lastWrites.put(key, System.currentTimeMillis());
+    }
+
+    public void pinToPrimaryIfRecentlyWritten(String key) {
+        Long lastWrite = lastWrites.get(key);
+        if (lastWrite == null) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastWrite > readYourWritesWindowMs) {
+            // The replica has had time to catch up, forget the write
+            lastWrites.remove(key, lastWrite);
+            return;
+        }
+        // Only pin inside a transaction, otherwise nothing would clear the flag
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PINNED_TO_PRIMARY.remove();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${chatter.datasource.replica.prune-interval-ms:60000}")
+    public void pruneExpiredWrites() {
+        long expiredBefore = System.currentTimeMillis() - readYourWritesWindowMs;
+        lastWrites.values().removeIf(lastWrite -> lastWrite < expiredBefore);
+    }
+
+    int trackedWrites() {
+        return lastWrites.size();
+    }
+
+    public boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+}
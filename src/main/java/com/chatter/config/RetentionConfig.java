@@ -0,0 +1,80 @@
+package com.chatter.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "chatter.retention")
+public class RetentionConfig {
+    // Off unless asked for: compaction deletes rows from the message table
+    private boolean enabled = false;
+    // Days kept in the message table before a day is moved to an archive segment
+    private int hotDays = 2;
+    // Rows read or deleted per transaction while moving a day
+    private int batchSize = 1000;
+    // Messages per archive part file; a history page decodes at most the parts it needs
+    private int partMessages = 1000;
+    private int defaultDays = 365;
+    // Keyed by conversation: "public", or "dm:<email>|<email>" with the emails sorted
+    private Map<String, Integer> conversationDays = new HashMap<>();
+    private String archiveDir = "./archive";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getHotDays() {
+        return hotDays;
+    }
+
+    public void setHotDays(int hotDays) {
+        this.hotDays = hotDays;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getPartMessages() {
+        return partMessages;
+    }
+
+    public void setPartMessages(int partMessages) {
+        this.partMessages = partMessages;
+    }
+
+    public int getDefaultDays() {
+        return defaultDays;
+    }
+
+    public void setDefaultDays(int defaultDays) {
+        this.defaultDays = defaultDays;
+    }
+
+    public Map<String, Integer> getConversationDays() {
+        return conversationDays;
+    }
+
+    public void setConversationDays(Map<String, Integer> conversationDays) {
+        this.conversationDays = conversationDays;
+    }
+
+    public String getArchiveDir() {
+        return archiveDir;
+    }
+
+    public void setArchiveDir(String archiveDir) {
+        this.archiveDir = archiveDir;
+    }
+}
@@ -33,7 +33,7 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
-                .requestMatchers("/api/auth/**", "/ws/**", "/h2-console/**").permitAll()
+                .requestMatchers("/api/auth/**", "/ws/**", "/ws-raw/**", "/h2-console/**").permitAll()
                 .requestMatchers("/api/friends/**").authenticated()
                 .anyRequest().authenticated()
             )
@@ -57,13 +57,15 @@ public class SecurityConfig {
             "Accept",
             "Origin",
             "X-Requested-With",
+            "If-None-Match",
             "Access-Control-Request-Method",
             "Access-Control-Request-Headers"
         ));
         configuration.setExposedHeaders(Arrays.asList(
             "Access-Control-Allow-Origin",
             "Access-Control-Allow-Credentials",
-            "Authorization"
+            "Authorization",
+            "ETag"
         ));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
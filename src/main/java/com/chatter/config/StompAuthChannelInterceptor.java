@@ -0,0 +1,54 @@
+package com.chatter.config;
+
+import com.chatter.service.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * STOMP clients send the JWT as an {@code Authorization: Bearer} header on CONNECT. A valid
+ * token becomes the session's user, which {@code /user/...} destinations and
+ * {@code @MessageMapping} principals rely on; without one the session stays anonymous and
+ * only sees the public chat.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(StompAuthChannelInterceptor.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return message;
+        }
+        String token = header.substring(BEARER_PREFIX.length());
+        try {
+            String userEmail = jwtService.extractUsername(token);
+            if (userEmail != null && jwtService.isTokenValid(token, userEmail)) {
+                accessor.setUser(new UsernamePasswordAuthenticationToken(
+                        userEmail, null, jwtService.getAuthorities(token)));
+            }
+        } catch (Exception e) {
+            log.debug("STOMP token rejected: {}", e.getMessage());
+        }
+        return message;
+    }
+}
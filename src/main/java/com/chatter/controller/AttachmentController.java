@@ -0,0 +1,164 @@
+package com.chatter.controller;
+
+import com.chatter.model.Attachment;
+import com.chatter.service.AttachmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/attachments")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class AttachmentController {
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @PostMapping("/uploads")
+    public ResponseEntity<?> startUpload(
+            @RequestParam String fileName,
+            @RequestParam(required = false) String contentType,
+            @RequestParam long size,
+            Authentication authentication) {
+        try {
+            AttachmentService.Upload upload = attachmentService.startUpload(
+                    authentication.getName(), fileName, contentType, size);
+            return ResponseEntity.ok(Map.of("uploadId", upload.getId(), "size", upload.getSize()));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUploadStatus(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            long received = attachmentService.getReceivedBytes(uploadId, authentication.getName());
+            return ResponseEntity.ok(Map.of("received", received));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // The chunk is the raw request body, streamed to disk without being held in memory
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            HttpServletRequest request,
+            Authentication authentication) {
+        try {
+            long received = attachmentService.appendChunk(
+                    uploadId, authentication.getName(), offset, request.getInputStream());
+            return ResponseEntity.ok(Map.of("received", received));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(attachmentService.completeUpload(uploadId, authentication.getName()));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            attachmentService.cancelUpload(uploadId, authentication.getName());
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Attachments the caller may not see are reported as missing rather than forbidden
+    @GetMapping("/{attachmentId}/metadata")
+    public ResponseEntity<Attachment> getMetadata(@PathVariable String attachmentId, Authentication authentication) {
+        return attachmentService.findAttachment(attachmentId, authentication.getName())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Serves the file or a single byte range of it. Tomcat's sendfile is used when the
+     * connector supports it, otherwise FileChannel.transferTo copies straight to the socket stream.
+     */
+    @GetMapping("/{attachmentId}")
+    public void download(
+            @PathVariable String attachmentId,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Authentication authentication) throws IOException {
+        Attachment attachment = attachmentService.findAttachment(attachmentId, authentication.getName()).orElse(null);
+        if (attachment == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = attachment.getSize();
+        long start = 0;
+        long end = length - 1;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (end - start + 1 < length) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(attachment.getContentType() != null ? attachment.getContentType() : "application/octet-stream");
+        response.setContentLengthLong(count);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, "\"" + attachment.getContentHash() + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(attachment.getFileName(), StandardCharsets.UTF_8).build().toString());
+
+        Path file = attachmentService.getContentPath(attachment);
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, target);
+            }
+        }
+    }
+}
@@ -1,21 +1,53 @@
 package com.chatter.controller;
 
 import com.chatter.model.Message;
+import com.chatter.service.InboxService;
+import com.chatter.service.MessageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.web.bind.annotation.*;
+import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
+/**
+ * STOMP chat endpoints. Sessions are authenticated on CONNECT, so who sends or reads a message
+ * comes from the session's principal rather than the payload; frames from sessions without one
+ * are dropped.
+ */
 @RestController
 @CrossOrigin(origins = "*")
 public class ChatController {
+    private static final Logger log = LoggerFactory.getLogger(ChatController.class);
 
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private InboxService inboxService;
+
+    // Saved like a message from the raw handler, then broadcast with its id and server timestamp
     @MessageMapping("/chat")
     @SendTo("/topic/messages")
-    public Message sendMessage(Message message) {
-        message.setTimestamp(LocalDateTime.now());
-        // Broadcast the message to all subscribers
-        return message;
+    public Message sendMessage(Message message, Principal principal) {
+        if (principal == null) {
+            log.debug("Dropped chat message from an unauthenticated session");
+            return null;
+        }
+        return messageService.saveMessage(
+                principal.getName(), message.getContent(), message.getAttachmentId(), message.getRecipient());
+    }
+
+    // A bad attachment only rejects this frame
+    @MessageExceptionHandler(IllegalArgumentException.class)
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleRejectedMessage(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
     }
 
     @MessageMapping("/typing")
@@ -25,10 +57,20 @@ public class ChatController {
         return message;
     }
 
+    // The viewer sends sender = themselves and recipient = the friend whose messages they saw,
+    // or no recipient for the public room
     @MessageMapping("/message-status")
     @SendTo("/topic/message-status")
-    public Message updateMessageStatus(Message message) {
+    public Message updateMessageStatus(Message message, Principal principal) {
+        if (principal == null) {
+            log.debug("Dropped message status from an unauthenticated session");
+            return null;
+        }
         message.setTimestamp(LocalDateTime.now());
+        if ("SEEN".equals(message.getMessageStatus())) {
+            String peer = message.getRecipient();
+            inboxService.markRead(principal.getName(), peer == null || peer.isEmpty() ? InboxService.PUBLIC_PEER : peer);
+        }
         return message;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.chatter.controller;
+
+import com.chatter.model.ConversationSummary;
+import com.chatter.service.InboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/conversations")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class ConversationController {
+
+    @Autowired
+    private InboxService inboxService;
+
+    @GetMapping
+    public ResponseEntity<List<ConversationSummary>> getConversations(Authentication authentication) {
+        return ResponseEntity.ok(inboxService.getConversations(authentication.getName()));
+    }
+
+    // peerId is the other user's email, or "public" for the public room
+    @PostMapping("/{peerId}/read")
+    public ResponseEntity<Void> markRead(@PathVariable String peerId, Authentication authentication) {
+        inboxService.markRead(authentication.getName(), peerId);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -2,11 +2,13 @@ package com.chatter.controller;
 
 import com.chatter.model.Friend;
 import com.chatter.model.FriendStatus;
+import com.chatter.service.FriendGraphVersions;
 import com.chatter.service.FriendService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,6 +20,9 @@ public class FriendController {
     @Autowired
     private FriendService friendService;
 
+    @Autowired
+    private FriendGraphVersions friendGraphVersions;
+
     @PostMapping("/request")
     public ResponseEntity<Friend> sendFriendRequest(
             @RequestParam String friendId,
@@ -35,16 +40,25 @@ public class FriendController {
         return ResponseEntity.ok(friendService.updateFriendRequestStatus(requestId, status, authentication.getName()));
     }
 
+    // The ETag is taken before the query, so a concurrent change can only make it look older
     @GetMapping("/pending")
-    public ResponseEntity<List<Friend>> getPendingRequests(Authentication authentication) {
+    public ResponseEntity<List<Friend>> getPendingRequests(Authentication authentication, WebRequest webRequest) {
         String userEmail = authentication.getName();
-        return ResponseEntity.ok(friendService.getPendingRequests(userEmail));
+        String eTag = friendGraphVersions.getETag(userEmail);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(friendService.getPendingRequests(userEmail));
     }
 
     @GetMapping("/accepted")
-    public ResponseEntity<List<Friend>> getAcceptedFriends(Authentication authentication) {
+    public ResponseEntity<List<Friend>> getAcceptedFriends(Authentication authentication, WebRequest webRequest) {
         String userEmail = authentication.getName();
-        return ResponseEntity.ok(friendService.getAcceptedFriends(userEmail));
+        String eTag = friendGraphVersions.getETag(userEmail);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(friendService.getAcceptedFriends(userEmail));
     }
 
     @DeleteMapping("/{friendId}")
@@ -0,0 +1,37 @@
+package com.chatter.controller;
+
+import com.chatter.model.Message;
+import com.chatter.service.MessageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/messages")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class MessageController {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private MessageService messageService;
+
+    // Scrollback of the public room, or of the direct messages with "peer": pass the timestamp
+    // of the oldest message already shown as "before"
+    @GetMapping
+    public ResponseEntity<List<Message>> getHistory(
+            @RequestParam(required = false) String peer,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication) {
+        LocalDateTime cursor = before != null ? before : LocalDateTime.now(ZoneOffset.UTC);
+        return ResponseEntity.ok(messageService.getHistory(
+                authentication.getName(), peer, cursor, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
+    }
+}
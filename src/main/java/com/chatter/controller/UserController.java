@@ -0,0 +1,39 @@
+package com.chatter.controller;
+
+import com.chatter.model.UserProfile;
+import com.chatter.service.UserDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class UserController {
+
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserProfile>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userDirectory.search(q, Math.min(limit, MAX_SEARCH_RESULTS)));
+    }
+
+    // Resolves the emails stored in Friend.userId / Friend.friendId to profiles in one call
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody List<String> emails) {
+        if (emails.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "At most " + MAX_BATCH_SIZE + " users per request"));
+        }
+        return ResponseEntity.ok(userDirectory.findByEmails(emails));
+    }
+}
@@ -0,0 +1,48 @@
+package com.chatter.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+// One row per completed upload; uploads of identical content share a single blob on disk
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "attachments")
+public class Attachment {
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    // SHA-256 of the content, also the blob's file name on disk
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private String uploadedBy;
+
+    // Set when the attachment is sent: a recipient's email, or "public" for the public room
+    private String sharedWith;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public Attachment(String id, String contentHash, String fileName, String contentType, long size, String uploadedBy) {
+        this.id = id;
+        this.contentHash = contentHash;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.uploadedBy = uploadedBy;
+        this.createdAt = LocalDateTime.now();
+    }
+}
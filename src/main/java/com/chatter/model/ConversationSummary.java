@@ -0,0 +1,44 @@
+package com.chatter.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of an {@link InboxEntry} as listed by {@code GET /api/conversations}.
+ */
+public class ConversationSummary {
+    private final String peerId;
+    private final String lastSender;
+    private final String snippet;
+    private final LocalDateTime lastTimestamp;
+    private final long unreadCount;
+
+    public ConversationSummary(InboxEntry entry, long unreadCount) {
+        this.peerId = entry.getPeerId();
+        this.lastSender = entry.getLastSender();
+        this.snippet = entry.getSnippet();
+        this.lastTimestamp = entry.getLastTimestamp();
+        this.unreadCount = unreadCount;
+    }
+
+    public String getPeerId() {
+        return peerId;
+    }
+
+    public String getLastSender() {
+        return lastSender;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    @JsonSerialize(using = UtcTimestampSerializer.class)
+    public LocalDateTime getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+}
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "friends")
+@Table(name = "friends", indexes = {
+        @Index(name = "idx_friends_user_id", columnList = "user_id"),
+        @Index(name = "idx_friends_friend_id", columnList = "friend_id")})
 public class Friend {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +31,11 @@ public class Friend {
 
     private LocalDateTime updatedAt;
 
+    // Concurrent accepts and removals of the same request fail instead of overwriting each other
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     public Friend(String userId, String friendId) {
         this.userId = userId;
         this.friendId = friendId;
@@ -0,0 +1,29 @@
+package com.chatter.model;
+
+/**
+ * A change to a friendship, published by FriendService and delivered after commit.
+ */
+public class FriendEvent {
+
+    public enum Type {
+        REQUEST_SENT,
+        STATUS_CHANGED,
+        REMOVED
+    }
+
+    private final Type type;
+    private final Friend friendship;
+
+    public FriendEvent(Type type, Friend friendship) {
+        this.type = type;
+        this.friendship = friendship;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Friend getFriendship() {
+        return friendship;
+    }
+}
@@ -0,0 +1,22 @@
+package com.chatter.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Version of one user's friend lists, bumped in the transaction of every friendship write that
+ * involves them, so a poll can check for changes with a primary-key lookup.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "friend_graph_version")
+public class FriendGraphVersion {
+    // The user's email
+    @Id
+    private String userId;
+
+    @Column(nullable = false)
+    private long version;
+}
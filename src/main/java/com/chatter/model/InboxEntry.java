@@ -0,0 +1,49 @@
+package com.chatter.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * One conversation in a user's inbox, kept up to date as messages are saved and read so the
+ * conversation list never has to be aggregated from the message table. Unread messages are
+ * {@code messageCount - readCount}.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "inbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inbox_owner_peer", columnNames = {"owner_id", "peer_id"}))
+public class InboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String ownerId;
+
+    // The other user's email, or "public" for the shared room
+    @Column(nullable = false)
+    private String peerId;
+
+    private Long lastMessageId;
+
+    private String lastSender;
+
+    @Column(length = 140)
+    private String snippet;
+
+    private LocalDateTime lastTimestamp;
+
+    @Column(nullable = false)
+    private long messageCount;
+
+    @Column(nullable = false)
+    private long readCount;
+
+    public InboxEntry(String ownerId, String peerId) {
+        this.ownerId = ownerId;
+        this.peerId = peerId;
+    }
+}
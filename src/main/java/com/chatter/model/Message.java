@@ -4,12 +4,18 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_message_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_message_sender_recipient_timestamp", columnList = "sender, recipient, timestamp")})
 public class Message {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,8 +25,11 @@ public class Message {
     private String recipient;
     private String messageStatus; // SENT, DELIVERED, SEEN
     private boolean isTyping;
+    private String attachmentId; // Attachment.id, the file itself is fetched separately
     
+    // The pattern is still used for reading; writing goes through the hand-rolled serializer
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonSerialize(using = UtcTimestampSerializer.class)
     private LocalDateTime timestamp;
 
     public Message() {
@@ -32,28 +41,4 @@ public class Message {
         this.timestamp = LocalDateTime.parse(timestamp);
         this.messageStatus = "SENT";
     }
-
-    public String getSender() {
-        return sender;
-    }
-
-    public void setSender(String sender) {
-        this.sender = sender;
-    }
-
-    public String getContent() {
-        return content;
-    }
-
-    public void setContent(String content) {
-        this.content = content;
-    }
-
-    public LocalDateTime getTimestamp() {
-        return timestamp;
-    }
-
-    public void setTimestamp(LocalDateTime timestamp) {
-        this.timestamp = timestamp;
-    }
-} 
\ No newline at end of file
+}
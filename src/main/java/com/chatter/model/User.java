@@ -1,6 +1,8 @@
 package com.chatter.model;
 
+import com.chatter.service.UserDirectoryListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -8,6 +10,7 @@ import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
 @Entity
+@EntityListeners(UserDirectoryListener.class)
 @Table(name = "users", uniqueConstraints = {
     @UniqueConstraint(columnNames = "email")
 })
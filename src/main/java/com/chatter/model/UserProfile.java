@@ -0,0 +1,34 @@
+package com.chatter.model;
+
+/**
+ * Read-only view of a {@link User} as shown to other users.
+ */
+public class UserProfile {
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final String profilePicture;
+
+    public UserProfile(User user) {
+        this.id = user.getId();
+        this.name = user.getName();
+        this.email = user.getEmail();
+        this.profilePicture = user.getProfilePicture();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getProfilePicture() {
+        return profilePicture;
+    }
+}
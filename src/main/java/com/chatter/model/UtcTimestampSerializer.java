@@ -0,0 +1,61 @@
+package com.chatter.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a UTC LocalDateTime as {@code yyyy-MM-dd'T'HH:mm:ss.SSS'Z'} digit by digit, without
+ * going through DateTimeFormatter and an intermediate String on every message.
+ */
+public class UtcTimestampSerializer extends StdSerializer<LocalDateTime> {
+
+    private static final int LENGTH = 24;
+
+    public UtcTimestampSerializer() {
+        super(LocalDateTime.class);
+    }
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        char[] buffer = new char[LENGTH];
+        format(value, buffer);
+        gen.writeString(buffer, 0, LENGTH);
+    }
+
+    static void format(LocalDateTime value, char[] buffer) {
+        int year = value.getYear();
+        buffer[0] = digit(year / 1000 % 10);
+        buffer[1] = digit(year / 100 % 10);
+        buffer[2] = digit(year / 10 % 10);
+        buffer[3] = digit(year % 10);
+        buffer[4] = '-';
+        twoDigits(value.getMonthValue(), buffer, 5);
+        buffer[7] = '-';
+        twoDigits(value.getDayOfMonth(), buffer, 8);
+        buffer[10] = 'T';
+        twoDigits(value.getHour(), buffer, 11);
+        buffer[13] = ':';
+        twoDigits(value.getMinute(), buffer, 14);
+        buffer[16] = ':';
+        twoDigits(value.getSecond(), buffer, 17);
+        buffer[19] = '.';
+        int millis = value.getNano() / 1_000_000;
+        buffer[20] = digit(millis / 100);
+        buffer[21] = digit(millis / 10 % 10);
+        buffer[22] = digit(millis % 10);
+        buffer[23] = 'Z';
+    }
+
+    private static void twoDigits(int value, char[] buffer, int offset) {
+        buffer[offset] = digit(value / 10);
+        buffer[offset + 1] = digit(value % 10);
+    }
+
+    private static char digit(int value) {
+        return (char) ('0' + value);
+    }
+}
@@ -0,0 +1,16 @@
+package com.chatter.repository;
+
+import com.chatter.model.Attachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, String> {
+
+    // Claims an unsent attachment for one message; returns 0 if it is not the uploader's or was already sent
+    @Modifying
+    @Query("UPDATE Attachment a SET a.sharedWith = ?3 WHERE a.id = ?1 AND a.uploadedBy = ?2 AND a.sharedWith IS NULL")
+    int share(String id, String uploadedBy, String sharedWith);
+}
@@ -0,0 +1,16 @@
+package com.chatter.repository;
+
+import com.chatter.model.FriendGraphVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FriendGraphVersionRepository extends JpaRepository<FriendGraphVersion, String> {
+
+    // Bumped in the statement itself so concurrent writes cannot lose updates
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE FriendGraphVersion v SET v.version = v.version + 1 WHERE v.userId = ?1")
+    int bump(String userId);
+}
@@ -0,0 +1,39 @@
+package com.chatter.repository;
+
+import com.chatter.model.InboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InboxRepository extends JpaRepository<InboxEntry, Long> {
+
+    List<InboxEntry> findByOwnerId(String ownerId);
+
+    List<InboxEntry> findByOwnerIdInAndPeerId(Collection<String> ownerIds, String peerId);
+
+    // Counters are bumped in the statement itself so concurrent messages cannot lose updates
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InboxEntry e SET e.lastMessageId = ?3, e.lastSender = ?4, e.snippet = ?5, e.lastTimestamp = ?6, "
+            + "e.messageCount = e.messageCount + 1 WHERE e.ownerId = ?1 AND e.peerId = ?2")
+    int recordMessage(String ownerId, String peerId, Long messageId, String sender, String snippet, LocalDateTime timestamp);
+
+    // The sender has read their own message, so the read count moves with the message count
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InboxEntry e SET e.lastMessageId = ?3, e.lastSender = ?4, e.snippet = ?5, e.lastTimestamp = ?6, "
+            + "e.messageCount = e.messageCount + 1, e.readCount = e.messageCount + 1 WHERE e.ownerId = ?1 AND e.peerId = ?2")
+    int recordOwnMessage(String ownerId, String peerId, Long messageId, String sender, String snippet, LocalDateTime timestamp);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InboxEntry e SET e.readCount = e.messageCount WHERE e.ownerId = ?1 AND e.peerId = ?2")
+    int markRead(String ownerId, String peerId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InboxEntry e SET e.readCount = ?3 WHERE e.ownerId = ?1 AND e.peerId = ?2")
+    int setReadCount(String ownerId, String peerId, long readCount);
+}
@@ -1,11 +1,46 @@
 package com.chatter.repository;
 
 import com.chatter.model.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
-    List<Message> findTop50ByOrderByTimestampDesc();
+    @Query("SELECT m FROM Message m WHERE m.recipient IS NULL OR m.recipient = '' ORDER BY m.timestamp DESC")
+    List<Message> findLatestPublic(Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE (m.recipient IS NULL OR m.recipient = '') AND m.timestamp < ?1"
+            + " ORDER BY m.timestamp DESC")
+    List<Message> findPublicBefore(LocalDateTime before, Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.sender = ?1 AND m.recipient = ?2 AND m.timestamp < ?3 ORDER BY m.timestamp DESC")
+    List<Message> findSentBefore(String sender, String recipient, LocalDateTime before, Pageable pageable);
+
+    // One index range per direction, merged; an OR across both directions is planned as a
+    // scan of the timestamp index
+    default List<Message> findDirectBefore(String userEmail, String peer, LocalDateTime before, Pageable pageable) {
+        List<Message> messages = new ArrayList<>(findSentBefore(userEmail, peer, before, pageable));
+        messages.addAll(findSentBefore(peer, userEmail, before, pageable));
+        messages.sort(Comparator.comparing(Message::getTimestamp).reversed());
+        return messages.size() > pageable.getPageSize() ? new ArrayList<>(messages.subList(0, pageable.getPageSize())) : messages;
+    }
+
+    // Keyset batches of one day for archiving, in timestamp order so archive parts are ordered
+    @Query("SELECT m FROM Message m WHERE m.timestamp >= ?1 AND m.timestamp < ?2"
+            + " AND (m.timestamp > ?3 OR (m.timestamp = ?3 AND m.id > ?4)) ORDER BY m.timestamp, m.id")
+    List<Message> findDayBatch(LocalDateTime from, LocalDateTime to, LocalDateTime afterTimestamp, long afterId,
+            Pageable pageable);
+
+    @Query("SELECT m.id FROM Message m WHERE m.timestamp >= ?1 AND m.timestamp < ?2 ORDER BY m.id")
+    List<Long> findDayIds(LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Query("SELECT MIN(m.timestamp) FROM Message m")
+    Optional<LocalDateTime> findOldestTimestamp();
 } 
\ No newline at end of file
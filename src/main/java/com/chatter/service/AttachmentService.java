@@ -0,0 +1,319 @@
+package com.chatter.service;
+
+import com.chatter.model.Attachment;
+import com.chatter.repository.AttachmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+@Service
+public class AttachmentService {
+    private static final Logger log = LoggerFactory.getLogger(AttachmentService.class);
+
+    public static final String PUBLIC_AUDIENCE = "public";
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Value("${chatter.attachments.dir:./attachments}")
+    private String storageDir;
+
+    @Value("${chatter.attachments.max-size:2147483648}")
+    private long maxSize;
+
+    @Value("${chatter.attachments.max-chunk-size:16777216}")
+    private long maxChunkSize;
+
+    @Value("${chatter.attachments.upload-ttl-ms:86400000}")
+    private long uploadTtlMs;
+
+    // Uploads in progress; each one is also saved next to its part file so it survives a restart
+    private final ConcurrentHashMap<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    public static class Upload {
+        private final String id;
+        private final String owner;
+        private final String fileName;
+        private final String contentType;
+        private final long size;
+
+        Upload(String id, String owner, String fileName, String contentType, long size) {
+            this.id = id;
+            this.owner = owner;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.size = size;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+
+    public Upload startUpload(String owner, String fileName, String contentType, long size) throws IOException {
+        if (size <= 0 || size > maxSize) {
+            throw new IllegalArgumentException("Attachment size must be between 1 and " + maxSize + " bytes");
+        }
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        Upload upload = new Upload(UUID.randomUUID().toString(), owner, fileName, contentType, size);
+        Files.createDirectories(partsDir());
+        Files.createFile(partFile(upload.id));
+        saveState(upload);
+        uploads.put(upload.id, upload);
+        return upload;
+    }
+
+    public long getReceivedBytes(String uploadId, String owner) throws IOException {
+        Upload upload = getUpload(uploadId, owner);
+        return Files.size(partFile(upload.id));
+    }
+
+    /**
+     * Streams one chunk from the request body to the upload's part file, starting at offset.
+     * A client resuming after a failure asks for the received byte count and continues from there.
+     */
+    public long appendChunk(String uploadId, String owner, long offset, InputStream body) throws IOException {
+        Upload upload = getUpload(uploadId, owner);
+        synchronized (upload) {
+            Path part = partFile(upload.id);
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                long received = channel.size();
+                if (offset < 0 || offset > received) {
+                    throw new IllegalArgumentException("Chunk offset " + offset + " does not match received bytes " + received);
+                }
+                // A retried chunk overwrites whatever part of it arrived last time
+                channel.truncate(offset);
+
+                long limit = Math.min(maxChunkSize, upload.size - offset);
+                ReadableByteChannel source = Channels.newChannel(body);
+                long written = channel.transferFrom(source, offset, limit);
+                if (written == limit && body.read() != -1) {
+                    channel.truncate(offset);
+                    throw new IllegalArgumentException("Chunk exceeds " + maxChunkSize + " bytes or the declared attachment size");
+                }
+                return offset + written;
+            }
+        }
+    }
+
+    /**
+     * Hashes the completed upload and moves it into content-addressed storage.
+     * Identical content already on disk is reused and the new copy discarded, but every
+     * upload gets its own attachment record with its own name and owner.
+     */
+    public Attachment completeUpload(String uploadId, String owner) throws IOException {
+        Upload upload = getUpload(uploadId, owner);
+        synchronized (upload) {
+            Path part = partFile(upload.id);
+            long received = Files.size(part);
+            if (received != upload.size) {
+                throw new IllegalArgumentException("Upload incomplete: received " + received + " of " + upload.size + " bytes");
+            }
+
+            String hash = sha256(part);
+            Path target = contentFile(hash);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                Files.delete(part);
+            } else {
+                // Concurrent uploads of the same content would write identical bytes, so replacing is safe
+                Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            uploads.remove(upload.id);
+            Files.deleteIfExists(stateFile(upload.id));
+
+            return attachmentRepository.save(
+                    new Attachment(upload.id, hash, upload.fileName, upload.contentType, upload.size, owner));
+        }
+    }
+
+    public void cancelUpload(String uploadId, String owner) throws IOException {
+        Upload upload = getUpload(uploadId, owner);
+        synchronized (upload) {
+            uploads.remove(upload.id);
+            Files.deleteIfExists(partFile(upload.id));
+            Files.deleteIfExists(stateFile(upload.id));
+        }
+    }
+
+    /**
+     * Marks the sender's attachment as sent to a recipient, or to the public room when the
+     * recipient is null. Each upload goes out with at most one message.
+     */
+    public void share(String id, String sender, String recipient) {
+        if (attachmentRepository.share(id, sender, recipient != null ? recipient : PUBLIC_AUDIENCE) == 0) {
+            throw new IllegalArgumentException("Attachment not found");
+        }
+    }
+
+    // Visible to the uploader and to whoever it was sent to
+    public Optional<Attachment> findAttachment(String id, String user) {
+        return attachmentRepository.findById(id).filter(attachment -> attachment.getUploadedBy().equals(user)
+                || PUBLIC_AUDIENCE.equals(attachment.getSharedWith())
+                || user.equals(attachment.getSharedWith()));
+    }
+
+    public Path getContentPath(Attachment attachment) {
+        return contentFile(attachment.getContentHash());
+    }
+
+    /**
+     * Removes uploads that have not received a chunk within the TTL, including ones whose
+     * state was left on disk by an earlier run.
+     */
+    @Scheduled(fixedDelayString = "${chatter.attachments.sweep-interval-ms:3600000}",
+            initialDelayString = "${chatter.attachments.sweep-interval-ms:3600000}")
+    public void sweepExpiredUploads() {
+        Path dir = partsDir();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - uploadTtlMs;
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{part,upload}")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String uploadId = name.substring(0, name.lastIndexOf('.'));
+                if (expired(uploadId, cutoff)) {
+                    removed += Files.deleteIfExists(file) ? 1 : 0;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep expired uploads in {}", dir, e);
+        }
+        if (removed > 0) {
+            log.info("Removed {} expired upload files", removed);
+        }
+    }
+
+    private boolean expired(String uploadId, long cutoff) throws IOException {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null) {
+            return lastActivity(uploadId) < cutoff;
+        }
+        // Holding the upload's lock keeps a chunk from landing between the check and the delete
+        synchronized (upload) {
+            if (lastActivity(uploadId) >= cutoff) {
+                return false;
+            }
+            uploads.remove(uploadId, upload);
+            return true;
+        }
+    }
+
+    private long lastActivity(String uploadId) throws IOException {
+        long last = 0;
+        for (Path file : new Path[] {partFile(uploadId), stateFile(uploadId)}) {
+            if (Files.exists(file)) {
+                last = Math.max(last, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return last;
+    }
+
+    private Upload getUpload(String uploadId, String owner) {
+        Upload upload = uploadId != null ? uploads.computeIfAbsent(uploadId, this::loadState) : null;
+        if (upload == null || !upload.owner.equals(owner)) {
+            throw new IllegalArgumentException("Upload not found");
+        }
+        return upload;
+    }
+
+    private void saveState(Upload upload) throws IOException {
+        Properties state = new Properties();
+        state.setProperty("owner", upload.owner);
+        state.setProperty("fileName", upload.fileName);
+        if (upload.contentType != null) {
+            state.setProperty("contentType", upload.contentType);
+        }
+        state.setProperty("size", Long.toString(upload.size));
+        try (Writer writer = Files.newBufferedWriter(stateFile(upload.id), StandardCharsets.UTF_8)) {
+            state.store(writer, null);
+        }
+    }
+
+    // Picks up an upload started before a restart; returns null if there is none
+    private Upload loadState(String uploadId) {
+        if (!UPLOAD_ID.matcher(uploadId).matches() || !Files.exists(partFile(uploadId))) {
+            return null;
+        }
+        Properties state = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile(uploadId), StandardCharsets.UTF_8)) {
+            state.load(reader);
+        } catch (IOException e) {
+            return null;
+        }
+        return new Upload(uploadId, state.getProperty("owner"), state.getProperty("fileName"),
+                state.getProperty("contentType"), Long.parseLong(state.getProperty("size")));
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path partsDir() {
+        return Paths.get(storageDir, "parts");
+    }
+
+    private Path partFile(String uploadId) {
+        return partsDir().resolve(uploadId + ".part");
+    }
+
+    private Path stateFile(String uploadId) {
+        return partsDir().resolve(uploadId + ".upload");
+    }
+
+    // Two-character fan-out keeps directories small
+    private Path contentFile(String hash) {
+        return Paths.get(storageDir, "content", hash.substring(0, 2), hash);
+    }
+}
@@ -9,7 +9,6 @@ import com.google.api.client.json.gson.GsonFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PostConstruct;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -26,17 +25,30 @@ public class AuthService {
     @Autowired
     private JwtService jwtService;
 
-    private GoogleIdTokenVerifier verifier;
+    @Autowired
+    private InboxService inboxService;
+
+    private volatile GoogleIdTokenVerifier verifier;
 
-    @PostConstruct
-    public void init() {
-        this.verifier = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), new GsonFactory())
-                .setAudience(Collections.singletonList(clientId))
-                .build();
+    // Built on first sign-in instead of at startup, the HTTP transport is slow to create
+    private GoogleIdTokenVerifier getVerifier() {
+        GoogleIdTokenVerifier result = verifier;
+        if (result == null) {
+            synchronized (this) {
+                result = verifier;
+                if (result == null) {
+                    result = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), new GsonFactory())
+                            .setAudience(Collections.singletonList(clientId))
+                            .build();
+                    verifier = result;
+                }
+            }
+        }
+        return result;
     }
 
     public Map<String, Object> verifyGoogleToken(String token) throws Exception {
-        GoogleIdToken idToken = verifier.verify(token);
+        GoogleIdToken idToken = getVerifier().verify(token);
         if (idToken == null) {
             throw new Exception("Invalid token");
         }
@@ -51,7 +63,10 @@ public class AuthService {
                     newUser.setName((String) payload.get("name"));
                     newUser.setProfilePicture((String) payload.get("picture"));
                     newUser.setGoogleUser(true);
-                    return userRepository.save(newUser);
+                    User saved = userRepository.save(newUser);
+                    // New users start with the public room's history already read
+                    inboxService.markRead(email, InboxService.PUBLIC_PEER);
+                    return saved;
                 });
                 
         // Generate JWT token
@@ -0,0 +1,62 @@
+package com.chatter.service;
+
+import com.chatter.model.Friend;
+import com.chatter.model.FriendEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Once a friendship change is committed, pushes it to both users: to STOMP clients on
+ * {@code /user/queue/friends} and to raw {@code /ws-raw} sessions. Each push carries the
+ * user's new friend list ETag, read after commit so it always matches what a fetch returns.
+ */
+@Component
+public class FriendEventNotifier {
+    private static final Logger log = LoggerFactory.getLogger(FriendEventNotifier.class);
+
+    public static final String FRIENDS_QUEUE = "/queue/friends";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FriendGraphVersions friendGraphVersions;
+
+    @Autowired
+    private UserSessionRegistry userSessionRegistry;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFriendEvent(FriendEvent event) {
+        Friend friendship = event.getFriendship();
+        notify(friendship.getUserId(), event);
+        notify(friendship.getFriendId(), event);
+    }
+
+    private void notify(String userEmail, FriendEvent event) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", "friend");
+        frame.put("event", event.getType());
+        frame.put("friendship", event.getFriendship());
+        frame.put("version", friendGraphVersions.getETag(userEmail));
+        messagingTemplate.convertAndSendToUser(userEmail, FRIENDS_QUEUE, frame);
+        try {
+            userSessionRegistry.sendToUser(userEmail, new TextMessage(objectMapper.writeValueAsString(frame)));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not encode friend event for {}", userEmail, e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.chatter.service;
+
+import com.chatter.config.ReplicaConsistencyTracker;
+import com.chatter.model.FriendGraphVersion;
+import com.chatter.repository.FriendGraphVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * ETag of a user's friend lists. Every friendship write bumps both users' version rows in its
+ * own transaction, so every node agrees, restarts keep it, and a poll costs one primary-key
+ * lookup instead of scanning the user's friendships.
+ */
+@Component
+public class FriendGraphVersions {
+
+    private static final String INSERT_VERSION =
+            "INSERT INTO friend_graph_version (user_id, version) VALUES (?, 0)";
+
+    @Autowired
+    private FriendGraphVersionRepository versionRepository;
+
+    @Autowired
+    private ReplicaConsistencyTracker consistencyTracker;
+
+    @Autowired
+    private RowUpserter rowUpserter;
+
+    @Transactional(readOnly = true)
+    public String getETag(String userId) {
+        consistencyTracker.pinToPrimaryIfRecentlyWritten(userId);
+        long version = versionRepository.findById(userId).map(FriendGraphVersion::getVersion).orElse(0L);
+        return "\"" + version + "\"";
+    }
+
+    // Rows are locked in a fixed order so two writes between the same users cannot deadlock
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bump(String userId, String otherUserId) {
+        Stream.of(userId, otherUserId).sorted().forEach(user ->
+                rowUpserter.updateOrInsert(() -> versionRepository.bump(user), INSERT_VERSION, user));
+    }
+}
@@ -1,11 +1,15 @@
 package com.chatter.service;
 
+import com.chatter.config.ReplicaConsistencyTracker;
 import com.chatter.model.Friend;
+import com.chatter.model.FriendEvent;
 import com.chatter.model.FriendStatus;
 import com.chatter.repository.FriendRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -15,15 +19,30 @@ public class FriendService {
     @Autowired
     private FriendRepository friendRepository;
 
+    @Autowired
+    private ReplicaConsistencyTracker consistencyTracker;
+
+    @Autowired
+    private FriendGraphVersions graphVersions;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional
     public Friend sendFriendRequest(String userId, String friendId) {
         if (userId.equals(friendId)) {
             throw new IllegalArgumentException("Cannot send friend request to yourself");
         }
 
         return friendRepository.findFriendship(userId, friendId)
-                .orElseGet(() -> friendRepository.save(new Friend(userId, friendId)));
+                .orElseGet(() -> {
+                    Friend friend = friendRepository.save(new Friend(userId, friendId));
+                    recordWrite(friend, FriendEvent.Type.REQUEST_SENT);
+                    return friend;
+                });
     }
 
+    @Transactional
     public Friend updateFriendRequestStatus(Long requestId, FriendStatus status, String userEmail) {
         Friend friend = friendRepository.findById(requestId)
                 .orElseThrow(() -> new IllegalArgumentException("Friend request not found"));
@@ -34,26 +53,44 @@ public class FriendService {
         }
         
         friend.setStatus(status);
-        return friendRepository.save(friend);
+        Friend saved = friendRepository.save(friend);
+        recordWrite(saved, FriendEvent.Type.STATUS_CHANGED);
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public List<Friend> getPendingRequests(String userId) {
+        consistencyTracker.pinToPrimaryIfRecentlyWritten(userId);
         return friendRepository.findByFriendIdAndStatus(userId, FriendStatus.PENDING);
     }
 
+    @Transactional(readOnly = true)
     public List<Friend> getAcceptedFriends(String userId) {
+        consistencyTracker.pinToPrimaryIfRecentlyWritten(userId);
         return friendRepository.findAllAcceptedFriends(userId);
     }
 
+    @Transactional
     public void removeFriend(String userId, String friendId) {
         Friend friend = friendRepository.findFriendship(userId, friendId)
                 .orElseThrow(() -> new IllegalArgumentException("Friendship not found"));
         friendRepository.delete(friend);
+        recordWrite(friend, FriendEvent.Type.REMOVED);
     }
 
+    @Transactional(readOnly = true)
     public boolean areFriends(String userId, String friendId) {
+        consistencyTracker.pinToPrimaryIfRecentlyWritten(userId);
         return friendRepository.findFriendship(userId, friendId)
                 .map(friend -> friend.getStatus() == FriendStatus.ACCEPTED)
                 .orElse(false);
     }
-} 
\ No newline at end of file
+
+    // Both sides of a friendship see the change, so both must read their own writes and get notified
+    private void recordWrite(Friend friend, FriendEvent.Type type) {
+        consistencyTracker.recordWrite(friend.getUserId());
+        consistencyTracker.recordWrite(friend.getFriendId());
+        graphVersions.bump(friend.getUserId(), friend.getFriendId());
+        eventPublisher.publishEvent(new FriendEvent(type, friend));
+    }
+}
@@ -0,0 +1,129 @@
+package com.chatter.service;
+
+import com.chatter.config.ReplicaConsistencyTracker;
+import com.chatter.model.ConversationSummary;
+import com.chatter.model.InboxEntry;
+import com.chatter.model.Message;
+import com.chatter.repository.InboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Maintains each user's conversation list as messages are saved and read. A direct message
+ * touches the two participants' entries. The public room is counted on a few shared stripe
+ * entries, so concurrent posts do not all queue on one row: each post bumps one stripe, and
+ * the room's latest message and count are read across all of them. Each user's own public
+ * entry only remembers how much of the room they have read; users get one at sign-up, and a
+ * user without one sees every public message as unread. Listing a user's conversations is one
+ * lookup by owner plus the stripes.
+ */
+@Service
+public class InboxService {
+
+    public static final String PUBLIC_PEER = "public";
+    static final int PUBLIC_STRIPES = 8;
+    // Owners of the entries shared by everyone for the public room; emails never look like this
+    static final List<String> SHARED_OWNERS =
+            IntStream.range(0, PUBLIC_STRIPES).mapToObj(stripe -> "*" + stripe).toList();
+    private static final int SNIPPET_LENGTH = 140;
+    private static final String INSERT_EMPTY_ENTRY =
+            "INSERT INTO inbox (owner_id, peer_id, message_count, read_count) VALUES (?, ?, 0, 0)";
+
+    @Autowired
+    private InboxRepository inboxRepository;
+
+    @Autowired
+    private ReplicaConsistencyTracker consistencyTracker;
+
+    @Autowired
+    private RowUpserter rowUpserter;
+
+    // Runs inside the transaction that saved the message
+    @Transactional
+    public void recordMessage(Message message) {
+        String sender = message.getSender();
+        String recipient = message.getRecipient();
+        if (recipient == null || recipient.isEmpty()) {
+            touch(sharedOwner(message), PUBLIC_PEER, message, false);
+            markRead(sender, PUBLIC_PEER);
+            return;
+        }
+        touch(sender, recipient, message, true);
+        touch(recipient, sender, message, false);
+        consistencyTracker.recordWrite(recipient);
+        consistencyTracker.recordWrite(sender);
+    }
+
+    @Transactional
+    public void markRead(String ownerId, String peerId) {
+        consistencyTracker.recordWrite(ownerId);
+        if (!PUBLIC_PEER.equals(peerId)) {
+            inboxRepository.markRead(ownerId, peerId);
+            return;
+        }
+        long published = inboxRepository.findByOwnerIdInAndPeerId(SHARED_OWNERS, PUBLIC_PEER).stream()
+                .mapToLong(InboxEntry::getMessageCount)
+                .sum();
+        updateOrInsert(ownerId, PUBLIC_PEER, () -> inboxRepository.setReadCount(ownerId, PUBLIC_PEER, published));
+    }
+
+    // Most recent conversation first
+    @Transactional(readOnly = true)
+    public List<ConversationSummary> getConversations(String ownerId) {
+        consistencyTracker.pinToPrimaryIfRecentlyWritten(ownerId);
+        List<ConversationSummary> conversations = new ArrayList<>();
+        long publicRead = 0;
+        for (InboxEntry entry : inboxRepository.findByOwnerId(ownerId)) {
+            if (PUBLIC_PEER.equals(entry.getPeerId())) {
+                publicRead = entry.getReadCount();
+            } else {
+                conversations.add(new ConversationSummary(entry, entry.getMessageCount() - entry.getReadCount()));
+            }
+        }
+        List<InboxEntry> stripes = inboxRepository.findByOwnerIdInAndPeerId(SHARED_OWNERS, PUBLIC_PEER);
+        if (!stripes.isEmpty()) {
+            long published = stripes.stream().mapToLong(InboxEntry::getMessageCount).sum();
+            InboxEntry latest = stripes.stream()
+                    .max(Comparator.comparing(InboxEntry::getLastTimestamp, Comparator.nullsFirst(Comparator.naturalOrder()))
+                            .thenComparing(InboxEntry::getLastMessageId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .get();
+            conversations.add(new ConversationSummary(latest, Math.max(0, published - publicRead)));
+        }
+        conversations.sort(Comparator.comparing(ConversationSummary::getLastTimestamp,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return conversations;
+    }
+
+    private void touch(String ownerId, String peerId, Message message, boolean ownMessage) {
+        String snippet = snippet(message);
+        LocalDateTime timestamp = message.getTimestamp();
+        updateOrInsert(ownerId, peerId, () -> ownMessage
+                ? inboxRepository.recordOwnMessage(ownerId, peerId, message.getId(), message.getSender(), snippet, timestamp)
+                : inboxRepository.recordMessage(ownerId, peerId, message.getId(), message.getSender(), snippet, timestamp));
+    }
+
+    private void updateOrInsert(String ownerId, String peerId, IntSupplier update) {
+        rowUpserter.updateOrInsert(update, INSERT_EMPTY_ENTRY, ownerId, peerId);
+    }
+
+    // Consecutive posts land on different stripes
+    private static String sharedOwner(Message message) {
+        return SHARED_OWNERS.get(Math.floorMod(message.getId(), PUBLIC_STRIPES));
+    }
+
+    static String snippet(Message message) {
+        String content = message.getContent();
+        if (content == null || content.isBlank()) {
+            return message.getAttachmentId() != null ? "[attachment]" : "";
+        }
+        return content.length() > SNIPPET_LENGTH ? content.substring(0, SNIPPET_LENGTH - 1) + "…" : content;
+    }
+}
@@ -0,0 +1,337 @@
+package com.chatter.service;
+
+import com.chatter.config.RetentionConfig;
+import com.chatter.model.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold message storage: one directory per UTC day, one gzipped JSON-lines segment per
+ * conversation inside it. A segment is split into parts of a fixed number of messages written
+ * in timestamp order, so a page is read from the newest part backwards and stops once it is
+ * full instead of decoding the whole day. A day is written into a staging directory and
+ * renamed into place, so a day directory that exists is complete. Expiring a conversation's
+ * day deletes its part files, so retention cost does not depend on how many messages they hold.
+ */
+@Service
+public class MessageArchive {
+
+    public static final String PUBLIC_CONVERSATION = "public";
+    private static final String SEGMENT_SUFFIX = ".jsonl.gz";
+
+    private final ObjectWriter messageWriter;
+    private final ObjectReader messageReader;
+
+    @Autowired
+    private RetentionConfig retentionConfig;
+
+    public MessageArchive(ObjectMapper objectMapper) {
+        this.messageWriter = objectMapper.writerFor(Message.class);
+        this.messageReader = objectMapper.readerFor(Message.class);
+    }
+
+    public static String conversationKey(Message message) {
+        return conversationKey(message.getSender(), message.getRecipient());
+    }
+
+    // A null or empty recipient is the public room
+    public static String conversationKey(String sender, String recipient) {
+        if (recipient == null || recipient.isEmpty()) {
+            return PUBLIC_CONVERSATION;
+        }
+        return sender.compareTo(recipient) <= 0 ? "dm:" + sender + "|" + recipient : "dm:" + recipient + "|" + sender;
+    }
+
+    public boolean isArchived(LocalDate day) {
+        return Files.isDirectory(dayDir(day));
+    }
+
+    /**
+     * Starts writing one day. Nothing becomes visible until {@link DayWriter#commit()}, and a
+     * writer closed without committing removes what it wrote.
+     */
+    public DayWriter openDay(LocalDate day) throws IOException {
+        Path stagingDir = Paths.get(retentionConfig.getArchiveDir(), day + ".tmp");
+        // Left over from a run that died before committing
+        deleteRecursively(stagingDir);
+        Files.createDirectories(stagingDir);
+        return new DayWriter(day, stagingDir);
+    }
+
+    /**
+     * Writes one day's messages as segments, replacing the day if it was archived before.
+     */
+    public void writeDay(LocalDate day, Iterable<Message> messages) throws IOException {
+        try (DayWriter writer = openDay(day)) {
+            for (Message message : messages) {
+                writer.write(message);
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * Newest archived messages of one conversation strictly before the given time, newest
+     * first. Only that conversation's parts are opened, newest first, until the page is full.
+     */
+    public List<Message> readBefore(String conversationKey, LocalDateTime before, int limit) throws IOException {
+        String segmentName = segmentName(conversationKey);
+        List<Message> result = new ArrayList<>();
+        for (LocalDate day : listDays().descendingSet()) {
+            if (day.isAfter(before.toLocalDate())) {
+                continue;
+            }
+            Path dayDir = dayDir(day);
+            // Every older part and day is entirely older than what is already collected
+            for (int part = countParts(dayDir, segmentName) - 1; part >= 0 && result.size() < limit; part--) {
+                readPart(dayDir.resolve(partName(segmentName, part)), before, result);
+            }
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        result.sort(Comparator.comparing(Message::getTimestamp).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Deletes every segment older than its conversation's retention, with all of its parts.
+     * Returns the number of segments removed.
+     */
+    public int enforceRetention(LocalDate today) throws IOException {
+        Map<String, Integer> daysBySegment = new HashMap<>();
+        retentionConfig.getConversationDays().forEach((key, days) -> daysBySegment.put(segmentName(key), days));
+
+        int removed = 0;
+        for (LocalDate day : listDays()) {
+            Path dayDir = dayDir(day);
+            try (DirectoryStream<Path> segments = Files.newDirectoryStream(dayDir, "*" + SEGMENT_SUFFIX)) {
+                for (Path part : segments) {
+                    String segmentName = segmentOf(part.getFileName().toString());
+                    int days = daysBySegment.getOrDefault(segmentName, retentionConfig.getDefaultDays());
+                    if (day.isBefore(today.minusDays(days))) {
+                        Files.delete(part);
+                        if (partName(segmentName, 0).equals(part.getFileName().toString())) {
+                            removed++;
+                        }
+                    }
+                }
+            }
+            try (DirectoryStream<Path> rest = Files.newDirectoryStream(dayDir)) {
+                if (!rest.iterator().hasNext()) {
+                    Files.delete(dayDir);
+                }
+            }
+        }
+        return removed;
+    }
+
+    private void readPart(Path part, LocalDateTime before, List<Message> into) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(part)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Message message = messageReader.readValue(line);
+                if (message.getTimestamp().isBefore(before)) {
+                    into.add(message);
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // Staging directories do not parse as dates, so readers never see a half-written day
+    private TreeSet<LocalDate> listDays() throws IOException {
+        TreeSet<LocalDate> days = new TreeSet<>();
+        Path root = Paths.get(retentionConfig.getArchiveDir());
+        if (!Files.isDirectory(root)) {
+            return days;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                try {
+                    days.add(LocalDate.parse(dir.getFileName().toString()));
+                } catch (DateTimeParseException e) {
+                    // Not a day directory
+                }
+            }
+        }
+        return days;
+    }
+
+    private Path dayDir(LocalDate day) {
+        return Paths.get(retentionConfig.getArchiveDir(), day.toString());
+    }
+
+    private static int countParts(Path dayDir, String segmentName) {
+        int parts = 0;
+        while (Files.exists(dayDir.resolve(partName(segmentName, parts)))) {
+            parts++;
+        }
+        return parts;
+    }
+
+    // The first part keeps the segment's own name, so archives written before parts still read
+    static String partName(String segmentName, int part) {
+        if (part == 0) {
+            return segmentName;
+        }
+        return segmentName.substring(0, segmentName.length() - SEGMENT_SUFFIX.length()) + "." + part + SEGMENT_SUFFIX;
+    }
+
+    // Segment names themselves contain no dot before the suffix
+    static String segmentOf(String partName) {
+        String stem = partName.substring(0, partName.length() - SEGMENT_SUFFIX.length());
+        int dot = stem.indexOf('.');
+        return dot < 0 ? partName : stem.substring(0, dot) + SEGMENT_SUFFIX;
+    }
+
+    // Direct-message keys contain emails, so they are hashed into a safe file name
+    static String segmentName(String conversationKey) {
+        if (PUBLIC_CONVERSATION.equals(conversationKey)) {
+            return PUBLIC_CONVERSATION + SEGMENT_SUFFIX;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conversationKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16) + SEGMENT_SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Segment writers for one day, opened lazily per conversation inside the staging directory.
+     * Messages must arrive in timestamp order; each segment moves on to a new part once the
+     * current one holds the configured number of messages.
+     */
+    public class DayWriter implements Closeable {
+        private final LocalDate day;
+        private final Path stagingDir;
+        private final Map<String, PartWriter> writers = new HashMap<>();
+        private boolean committed;
+
+        private DayWriter(LocalDate day, Path stagingDir) {
+            this.day = day;
+            this.stagingDir = stagingDir;
+        }
+
+        public void write(Message message) throws IOException {
+            String segment = segmentName(conversationKey(message));
+            PartWriter writer = writers.get(segment);
+            if (writer == null) {
+                writer = new PartWriter(stagingDir, segment);
+                writers.put(segment, writer);
+            }
+            writer.write(messageWriter.writeValueAsString(message));
+        }
+
+        public void commit() throws IOException {
+            closeWriters();
+            Path dayDir = dayDir(day);
+            deleteRecursively(dayDir);
+            Files.move(stagingDir, dayDir, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeWriters();
+            if (!committed) {
+                deleteRecursively(stagingDir);
+            }
+        }
+
+        private void closeWriters() throws IOException {
+            IOException failure = null;
+            for (PartWriter writer : writers.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            writers.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // One conversation's segment within a day writer
+    private class PartWriter implements Closeable {
+        private final Path dir;
+        private final String segmentName;
+        private int part;
+        private int messages;
+        private BufferedWriter out;
+
+        private PartWriter(Path dir, String segmentName) throws IOException {
+            this.dir = dir;
+            this.segmentName = segmentName;
+            this.out = open();
+        }
+
+        private void write(String line) throws IOException {
+            if (messages == retentionConfig.getPartMessages()) {
+                out.close();
+                part++;
+                messages = 0;
+                out = open();
+            }
+            out.write(line);
+            out.newLine();
+            messages++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private BufferedWriter open() throws IOException {
+            return new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(dir.resolve(partName(segmentName, part)))), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.chatter.service;
+
+import com.chatter.config.RetentionConfig;
+import com.chatter.model.Message;
+import com.chatter.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Nightly move of cold days out of the message table, followed by expiry of old archive
+ * segments. A day is streamed into the archive in timestamp-ordered batches and committed there
+ * first; only then are its rows deleted, again in id batches with one short transaction
+ * each, so no transaction holds a whole day. Moving a day out of the table does delete its
+ * rows; what stays free of row deletes is retention itself, which drops whole segment files.
+ */
+@Component
+public class MessageRetentionJob {
+    private static final Logger log = LoggerFactory.getLogger(MessageRetentionJob.class);
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private RetentionConfig retentionConfig;
+
+    // Read-write, so batches are read from the primary
+    private final TransactionTemplate transactionTemplate;
+
+    public MessageRetentionJob(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${chatter.retention.cron:0 15 3 * * *}", zone = "UTC")
+    public void run() {
+        if (!retentionConfig.isEnabled()) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        try {
+            int days = compact(today);
+            int expired = messageArchive.enforceRetention(today);
+            log.info("Retention moved {} days to the archive and expired {} segments", days, expired);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Retention run failed", e);
+        }
+    }
+
+    public int compact(LocalDate today) throws IOException {
+        LocalDate firstHotDay = today.minusDays(retentionConfig.getHotDays());
+        Optional<LocalDateTime> oldest = messageRepository.findOldestTimestamp();
+        if (oldest.isEmpty()) {
+            return 0;
+        }
+        int compacted = 0;
+        for (LocalDate day = oldest.get().toLocalDate(); day.isBefore(firstHotDay); day = day.plusDays(1)) {
+            if (compactDay(day)) {
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+
+    // A day already in the archive only had its deletes interrupted, so it is not written again
+    private boolean compactDay(LocalDate day) throws IOException {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        boolean archived = messageArchive.isArchived(day) || archiveDay(day, from, to);
+        if (archived) {
+            deleteDay(from, to);
+        }
+        return archived;
+    }
+
+    private boolean archiveDay(LocalDate day, LocalDateTime from, LocalDateTime to) throws IOException {
+        int batchSize = retentionConfig.getBatchSize();
+        boolean written = false;
+        try (MessageArchive.DayWriter writer = messageArchive.openDay(day)) {
+            LocalDateTime afterTimestamp = from;
+            long afterId = 0;
+            while (true) {
+                LocalDateTime cursorTimestamp = afterTimestamp;
+                long cursorId = afterId;
+                List<Message> batch = transactionTemplate.execute(status -> messageRepository.findDayBatch(
+                        from, to, cursorTimestamp, cursorId, PageRequest.of(0, batchSize)));
+                for (Message message : batch) {
+                    writer.write(message);
+                }
+                written |= !batch.isEmpty();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                Message last = batch.get(batch.size() - 1);
+                afterTimestamp = last.getTimestamp();
+                afterId = last.getId();
+            }
+            if (written) {
+                writer.commit();
+            }
+        }
+        return written;
+    }
+
+    private void deleteDay(LocalDateTime from, LocalDateTime to) {
+        int batchSize = retentionConfig.getBatchSize();
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = messageRepository.findDayIds(from, to, PageRequest.of(0, batchSize));
+                if (!ids.isEmpty()) {
+                    messageRepository.deleteAllByIdInBatch(ids);
+                }
+                return ids.size();
+            });
+        } while (deleted == batchSize);
+    }
+}
@@ -1,28 +1,119 @@
 package com.chatter.service;
 
+import com.chatter.config.RetentionConfig;
 import com.chatter.model.Message;
 import com.chatter.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class MessageService {
+
+    private static final int REPLAY_SIZE = 50;
     
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private RetentionConfig retentionConfig;
+
+    @Transactional
     public Message saveMessage(String sender, String content) {
+        return saveMessage(sender, content, null);
+    }
+
+    @Transactional
+    public Message saveMessage(String sender, String content, String attachmentId) {
+        return saveMessage(sender, content, attachmentId, null);
+    }
+
+    // A null recipient posts to the public room
+    @Transactional
+    public Message saveMessage(String sender, String content, String attachmentId, String recipient) {
+        if (attachmentId != null) {
+            attachmentService.share(attachmentId, sender, recipient);
+        }
         Message message = new Message();
         message.setSender(sender);
         message.setContent(content);
+        message.setAttachmentId(attachmentId);
+        message.setRecipient(recipient);
+        message.setMessageStatus("SENT");
         message.setTimestamp(LocalDateTime.now(ZoneOffset.UTC));
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        inboxService.recordMessage(saved);
+        return saved;
     }
 
+    // The public room's newest messages, served from the replica; new messages reach connected
+    // clients through the broadcast. Once retention has moved older days out of the table, a
+    // quiet room's replay is topped up from the archive like a history page.
+    @Transactional(readOnly = true)
     public List<Message> getLastMessages() {
-        return messageRepository.findTop50ByOrderByTimestampDesc();
+        List<Message> messages = messageRepository.findLatestPublic(PageRequest.of(0, REPLAY_SIZE));
+        if (messages.size() == REPLAY_SIZE || !retentionConfig.isEnabled()) {
+            return messages;
+        }
+        return withArchived(messages, MessageArchive.PUBLIC_CONVERSATION, LocalDateTime.now(ZoneOffset.UTC), REPLAY_SIZE);
+    }
+
+    /**
+     * One conversation before the cursor, newest first: the public room when peer is null,
+     * otherwise the user's direct messages with peer. The table holds every message newer than
+     * the hot cutoff, so the archive is only read when retention is on and the table runs out
+     * before the page is full, which means the page has reached past the cutoff.
+     */
+    @Transactional(readOnly = true)
+    public List<Message> getHistory(String userEmail, String peer, LocalDateTime before, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<Message> messages = peer == null
+                ? messageRepository.findPublicBefore(before, page)
+                : messageRepository.findDirectBefore(userEmail, peer, before, page);
+        if (messages.size() == limit || !retentionConfig.isEnabled()) {
+            return messages;
+        }
+        return withArchived(messages, MessageArchive.conversationKey(userEmail, peer), before, limit);
+    }
+
+    private List<Message> withArchived(List<Message> hot, String conversationKey, LocalDateTime before, int limit) {
+        LocalDateTime archivedBefore = hot.isEmpty() ? before : hot.get(hot.size() - 1).getTimestamp();
+        List<Message> archived;
+        try {
+            archived = messageArchive.readBefore(conversationKey, archivedBefore, limit - hot.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        // A day sits in both places while its rows are being deleted batch by batch
+        List<Message> merged = new ArrayList<>(hot);
+        Set<Long> seen = new HashSet<>();
+        hot.forEach(m -> seen.add(m.getId()));
+        for (Message message : archived) {
+            if (seen.add(message.getId())) {
+                merged.add(message);
+            }
+        }
+        return merged;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.chatter.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.function.IntSupplier;
+
+/**
+ * Update-or-insert for rows behind a unique key, for use inside a JPA transaction. The first
+ * write to a row inserts it and runs the update again. When two transactions race to create
+ * it, the loser's insert waits for the winner and fails on the key; it is rolled back to a
+ * savepoint so the rest of the transaction survives, and the retried update finds the winner's
+ * row. The insert goes through JDBC because a failed JPA statement marks the whole
+ * transaction for rollback, and the JPA dialect has no nested transactions.
+ */
+@Component
+public class RowUpserter {
+
+    // Shares the connection of the surrounding JPA transaction
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void updateOrInsert(IntSupplier update, String insertSql, Object... insertArgs) {
+        if (update.getAsInt() > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                Savepoint beforeInsert = connection.setSavepoint();
+                try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+                    for (int i = 0; i < insertArgs.length; i++) {
+                        insert.setObject(i + 1, insertArgs[i]);
+                    }
+                    return insert.executeUpdate();
+                } catch (SQLException e) {
+                    connection.rollback(beforeInsert);
+                    throw e;
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently
+        }
+        if (update.getAsInt() == 0) {
+            throw new IllegalStateException("Row vanished after insert: " + insertSql);
+        }
+    }
+}
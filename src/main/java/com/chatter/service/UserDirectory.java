@@ -0,0 +1,143 @@
+package com.chatter.service;
+
+import com.chatter.model.User;
+import com.chatter.model.UserProfile;
+import com.chatter.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory copy of every user's public profile, with a sorted token index for typeahead.
+ * Each user is indexed under their email, full name and every word of their name, so a
+ * prefix lookup is a range scan over the index. Loaded at startup and kept current by
+ * {@link UserDirectoryListener} as users are saved.
+ */
+@Service
+public class UserDirectory {
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+    // Separates the token from the email so one token can point to many users
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ConcurrentHashMap<String, UserProfile> profilesByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, UserProfile> index = new ConcurrentSkipListMap<>();
+    // Finds the old entry when a user's email changes
+    private final ConcurrentHashMap<Long, String> emailsById = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Page<User> page = userRepository.findAll(PageRequest.of(0, LOAD_PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            page.forEach(this::add);
+            if (!page.hasNext()) {
+                break;
+            }
+            page = userRepository.findAll(page.nextPageable());
+        }
+        log.info("User directory loaded {} users", profilesByEmail.size());
+    }
+
+    // Writers are rare (sign-ups and profile edits), readers never lock
+    public synchronized void add(User user) {
+        if (user.getEmail() == null) {
+            return;
+        }
+        String previousEmail = user.getId() != null ? emailsById.put(user.getId(), user.getEmail()) : null;
+        if (previousEmail != null && !previousEmail.equals(user.getEmail())) {
+            unindex(profilesByEmail.remove(previousEmail));
+        }
+        UserProfile profile = new UserProfile(user);
+        unindex(profilesByEmail.put(profile.getEmail(), profile));
+        for (String token : tokens(profile)) {
+            index.put(key(token, profile.getEmail()), profile);
+        }
+    }
+
+    public synchronized void remove(User user) {
+        String email = user.getId() != null ? emailsById.remove(user.getId()) : null;
+        if (email == null) {
+            email = user.getEmail();
+        }
+        if (email != null) {
+            unindex(profilesByEmail.remove(email));
+        }
+    }
+
+    private void unindex(UserProfile profile) {
+        if (profile == null) {
+            return;
+        }
+        for (String token : tokens(profile)) {
+            index.remove(key(token, profile.getEmail()));
+        }
+    }
+
+    public List<UserProfile> search(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<String, UserProfile> matches = new LinkedHashMap<>();
+        for (UserProfile profile : index.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values()) {
+            matches.putIfAbsent(profile.getEmail(), profile);
+            if (matches.size() >= limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(matches.values());
+    }
+
+    public Map<String, UserProfile> findByEmails(Collection<String> emails) {
+        Map<String, UserProfile> result = new LinkedHashMap<>();
+        for (String email : emails) {
+            UserProfile profile = profilesByEmail.get(email);
+            if (profile != null) {
+                result.put(email, profile);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> tokens(UserProfile profile) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.add(normalize(profile.getEmail()));
+        String name = normalize(profile.getName());
+        if (!name.isEmpty()) {
+            tokens.add(name);
+            for (String word : name.split("\\s+")) {
+                tokens.add(word);
+            }
+        }
+        return tokens;
+    }
+
+    private static String key(String token, String email) {
+        return token + KEY_SEPARATOR + email;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,50 @@
+package com.chatter.service;
+
+import com.chatter.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Entity listener on {@link User} that mirrors every insert, update and delete into the
+ * {@link UserDirectory}, whichever code path saved the user. Changes are applied once the
+ * transaction commits so a rolled-back edit never shows up in search.
+ */
+@Component
+public class UserDirectoryListener {
+
+    // Looked up lazily: the directory needs the repository, which needs this listener
+    private final ObjectProvider<UserDirectory> userDirectory;
+
+    public UserDirectoryListener(ObjectProvider<UserDirectory> userDirectory) {
+        this.userDirectory = userDirectory;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(User user) {
+        afterCommit(() -> userDirectory.getObject().add(user));
+    }
+
+    @PostRemove
+    public void removed(User user) {
+        afterCommit(() -> userDirectory.getObject().remove(user));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
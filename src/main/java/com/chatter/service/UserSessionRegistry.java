@@ -0,0 +1,58 @@
+package com.chatter.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open WebSocket sessions of signed-in users, keyed by email, for pushing per-user events.
+ */
+@Component
+public class UserSessionRegistry {
+    private static final Logger log = LoggerFactory.getLogger(UserSessionRegistry.class);
+
+    public static final String USER_ATTRIBUTE = "chatter.userEmail";
+
+    private final ConcurrentHashMap<String, Set<WebSocketSession>> sessionsByUser = new ConcurrentHashMap<>();
+
+    public void register(WebSocketSession session) {
+        String userEmail = getUserEmail(session);
+        if (userEmail != null) {
+            sessionsByUser.computeIfAbsent(userEmail, email -> ConcurrentHashMap.newKeySet()).add(session);
+        }
+    }
+
+    public void unregister(WebSocketSession session) {
+        String userEmail = getUserEmail(session);
+        if (userEmail == null) {
+            return;
+        }
+        sessionsByUser.computeIfPresent(userEmail, (email, sessions) -> {
+            sessions.removeIf(s -> s.getId().equals(session.getId()));
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    public void sendToUser(String userEmail, TextMessage message) {
+        Set<WebSocketSession> sessions = sessionsByUser.get(userEmail);
+        if (sessions == null) {
+            return;
+        }
+        for (WebSocketSession session : sessions) {
+            try {
+                session.sendMessage(message);
+            } catch (Exception e) {
+                log.warn("Could not push to session {} of {}", session.getId(), userEmail, e);
+            }
+        }
+    }
+
+    private static String getUserEmail(WebSocketSession session) {
+        return (String) session.getAttributes().get(USER_ATTRIBUTE);
+    }
+}
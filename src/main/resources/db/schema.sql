@@ -0,0 +1,70 @@
+-- Schema used by the prod profile, which runs with spring.jpa.hibernate.ddl-auto=none
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    email VARCHAR(255),
+    profile_picture VARCHAR(255),
+    is_google_user BOOLEAN NOT NULL,
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS message (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sender VARCHAR(255),
+    content VARCHAR(255),
+    recipient VARCHAR(255),
+    message_status VARCHAR(255),
+    is_typing BOOLEAN NOT NULL,
+    timestamp TIMESTAMP(6),
+    attachment_id VARCHAR(64)
+);
+
+CREATE INDEX IF NOT EXISTS idx_message_timestamp ON message (timestamp);
+-- Direct-message history pages, one range per direction
+CREATE INDEX IF NOT EXISTS idx_message_sender_recipient_timestamp ON message (sender, recipient, timestamp);
+
+CREATE TABLE IF NOT EXISTS friends (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id VARCHAR(255) NOT NULL,
+    friend_id VARCHAR(255) NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    version BIGINT DEFAULT 0 NOT NULL
+);
+
+-- Databases created before friend rows were versioned
+ALTER TABLE friends ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_friends_user_id ON friends (user_id);
+CREATE INDEX IF NOT EXISTS idx_friends_friend_id ON friends (friend_id);
+
+-- Bumped with every friendship write, read by the friend list ETag
+CREATE TABLE IF NOT EXISTS friend_graph_version (
+    user_id VARCHAR(255) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS attachments (
+    id VARCHAR(64) PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255),
+    size BIGINT NOT NULL,
+    uploaded_by VARCHAR(255) NOT NULL,
+    shared_with VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS inbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    owner_id VARCHAR(255) NOT NULL,
+    peer_id VARCHAR(255) NOT NULL,
+    last_message_id BIGINT,
+    last_sender VARCHAR(255),
+    snippet VARCHAR(140),
+    last_timestamp TIMESTAMP(6),
+    message_count BIGINT NOT NULL,
+    read_count BIGINT NOT NULL,
+    CONSTRAINT uk_inbox_owner_peer UNIQUE (owner_id, peer_id)
+);
@@ -0,0 +1,104 @@
+package com.chatter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CompactWebSocketSessionTests {
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstSend = new CountDownLatch(1);
+
+    @Test
+    void queueOnlyExistsWhileASendIsInProgress() throws Exception {
+        WebSocketSession delegate = blockingDelegate();
+        CompactWebSocketSession session = new CompactWebSocketSession(delegate, 10_000, 1024);
+
+        Thread first = new Thread(() -> send(session, "one"));
+        first.start();
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        session.sendMessage(new TextMessage("two"));
+        assertEquals(3, session.getBufferSize());
+
+        releaseFirstSend.countDown();
+        first.join(5000);
+
+        assertEquals(List.of("one", "two"), sent);
+        assertEquals(0, session.getBufferSize());
+        assertNull(ReflectionTestUtils.getField(session, "backlog"));
+        verify(delegate, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void slowClientIsClosedOnceItsQueueOverflows() throws Exception {
+        WebSocketSession delegate = blockingDelegate();
+        CompactWebSocketSession session = new CompactWebSocketSession(delegate, 10_000, 8);
+
+        Thread first = new Thread(() -> send(session, "one"));
+        first.start();
+        assertTrue(firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        session.sendMessage(new TextMessage("0123456789"));
+        verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+
+        // Later broadcasts are dropped rather than queued
+        session.sendMessage(new TextMessage("x"));
+        assertEquals(0, session.getBufferSize());
+
+        releaseFirstSend.countDown();
+        first.join(5000);
+        assertEquals(List.of("one"), sent);
+    }
+
+    @Test
+    void sessionsAreIdentifiedBySerial() {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        CompactWebSocketSession a = new CompactWebSocketSession(delegate, 10_000, 1024);
+        CompactWebSocketSession b = new CompactWebSocketSession(delegate, 10_000, 1024);
+
+        assertNotEquals(a, b);
+        assertNotEquals(a.getSerial(), b.getSerial());
+    }
+
+    private WebSocketSession blockingDelegate() throws Exception {
+        WebSocketSession delegate = mock(WebSocketSession.class);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (sent.isEmpty()) {
+                firstSendStarted.countDown();
+                releaseFirstSend.await(5, TimeUnit.SECONDS);
+            }
+            sent.add((String) message.getPayload());
+            return null;
+        }).when(delegate).sendMessage(any());
+        return delegate;
+    }
+
+    private static void send(CompactWebSocketSession session, String payload) {
+        try {
+            session.sendMessage(new TextMessage(payload));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.chatter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectionDrainerTests {
+
+    private static final int WAVE_SIZE = 100;
+    private static final long WAVE_INTERVAL_MS = 50;
+    private static final long MAX_RECONNECT_DELAY_MS = 1000;
+    private static final long FLUSH_TIMEOUT_MS = 200;
+
+    private ConnectionDrainer connectionDrainer;
+    // Close order, close time and the reconnect delay each session was given
+    private final List<long[]> closes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        connectionDrainer = new ConnectionDrainer();
+        ReflectionTestUtils.setField(connectionDrainer, "waveSize", WAVE_SIZE);
+        ReflectionTestUtils.setField(connectionDrainer, "waveIntervalMs", WAVE_INTERVAL_MS);
+        ReflectionTestUtils.setField(connectionDrainer, "maxDurationMs", 10_000L);
+        ReflectionTestUtils.setField(connectionDrainer, "maxReconnectDelayMs", MAX_RECONNECT_DELAY_MS);
+        ReflectionTestUtils.setField(connectionDrainer, "flushTimeoutMs", FLUSH_TIMEOUT_MS);
+    }
+
+    @Test
+    void sessionsCloseInSpacedWavesWithBoundedReconnectDelays() throws Exception {
+        for (int i = 0; i < 5 * WAVE_SIZE; i++) {
+            connectionDrainer.track(session("s" + i, false));
+        }
+
+        connectionDrainer.drain();
+
+        assertEquals(5 * WAVE_SIZE, closes.size());
+        for (int wave = 1; wave < 5; wave++) {
+            long lastOfPrevious = closes.get(wave * WAVE_SIZE - 1)[0];
+            long firstOfWave = closes.get(wave * WAVE_SIZE)[0];
+            assertTrue(firstOfWave - lastOfPrevious >= TimeUnit.MILLISECONDS.toNanos(WAVE_INTERVAL_MS),
+                    "wave " + wave + " started " + (firstOfWave - lastOfPrevious) + " ns after the previous one");
+        }
+        long distinctDelays = closes.stream().mapToLong(close -> close[1]).distinct().count();
+        assertTrue(closes.stream().allMatch(close -> close[1] >= 0 && close[1] <= MAX_RECONNECT_DELAY_MS));
+        assertTrue(distinctDelays > WAVE_SIZE, "only " + distinctDelays + " distinct reconnect delays");
+    }
+
+    @Test
+    void stuckQueuesDelayEachWaveOnlyOnce() throws Exception {
+        for (int i = 0; i < 3 * WAVE_SIZE; i++) {
+            connectionDrainer.track(session("s" + i, true));
+        }
+
+        long start = System.nanoTime();
+        connectionDrainer.drain();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Three flush timeouts plus two intervals, not one timeout per session
+        assertEquals(3 * WAVE_SIZE, closes.size());
+        assertTrue(elapsedMs >= 3 * FLUSH_TIMEOUT_MS, elapsedMs + " ms");
+        assertTrue(elapsedMs < 3 * FLUSH_TIMEOUT_MS + 2 * WAVE_INTERVAL_MS + 1000, elapsedMs + " ms");
+    }
+
+    @Test
+    void drainStopsWaitingAtTheOverallDeadline() throws Exception {
+        ReflectionTestUtils.setField(connectionDrainer, "maxDurationMs", 300L);
+        ReflectionTestUtils.setField(connectionDrainer, "flushTimeoutMs", 10_000L);
+        for (int i = 0; i < 10 * WAVE_SIZE; i++) {
+            connectionDrainer.track(session("s" + i, true));
+        }
+
+        long start = System.nanoTime();
+        connectionDrainer.drain();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(10 * WAVE_SIZE, closes.size());
+        assertTrue(elapsedMs < 300 + 1000, elapsedMs + " ms");
+    }
+
+    @Test
+    void handshakesAreRefusedWhileDraining() {
+        ServerHttpRequest request = mock(ServerHttpRequest.class);
+        ServerHttpResponse response = mock(ServerHttpResponse.class);
+        when(response.getHeaders()).thenReturn(new HttpHeaders());
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        Map<String, Object> attributes = new HashMap<>();
+
+        assertTrue(connectionDrainer.beforeHandshake(request, response, handler, attributes));
+        connectionDrainer.drain();
+        assertFalse(connectionDrainer.beforeHandshake(request, response, handler, attributes));
+        verify(response).setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Simulated clients reconnect when their session closes: right away, or after the
+     * {@code reconnect-after-ms} hint if they honour it. Without draining every session goes at
+     * once; draining spreads closes over waves, and honouring the hint spreads reconnects further.
+     */
+    @Test
+    void drainingLowersPeakReconnectRate() throws Exception {
+        int clients = 10 * WAVE_SIZE;
+        long window = TimeUnit.MILLISECONDS.toNanos(100);
+        ReflectionTestUtils.setField(connectionDrainer, "maxReconnectDelayMs", 3000L);
+
+        // Without draining the container closes everything as it stops
+        List<WebSocketSession> sessions = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            sessions.add(session("s" + i, false));
+        }
+        for (int i = 0; i < clients; i++) {
+            closes.add(new long[] {System.nanoTime(), 0});
+        }
+        int withoutDraining = peakPerWindow(closes, false, window);
+
+        closes.clear();
+        for (WebSocketSession session : sessions) {
+            connectionDrainer.track(session);
+        }
+        connectionDrainer.drain();
+        int drainedIgnoringHint = peakPerWindow(closes, false, window);
+        int drainedHonouringHint = peakPerWindow(closes, true, window);
+
+        assertEquals(clients, closes.size());
+        assertEquals(clients, withoutDraining);
+        assertTrue(drainedIgnoringHint <= 3 * WAVE_SIZE, drainedIgnoringHint + " reconnects in one window");
+        assertTrue(drainedHonouringHint < WAVE_SIZE, drainedHonouringHint + " reconnects in one window");
+    }
+
+    // Most reconnects in any sliding window, each client reconnecting at its close time plus the hint if honoured
+    private static int peakPerWindow(List<long[]> closes, boolean honourHint, long window) {
+        long[] reconnects = closes.stream()
+                .mapToLong(close -> close[0] + (honourHint ? TimeUnit.MILLISECONDS.toNanos(close[1]) : 0))
+                .sorted()
+                .toArray();
+        int peak = 0;
+        for (int from = 0, to = 0; to < reconnects.length; to++) {
+            while (reconnects[to] - reconnects[from] >= window) {
+                from++;
+            }
+            peak = Math.max(peak, to - from + 1);
+        }
+        return peak;
+    }
+
+    // A stuck session always reports queued bytes, like a client that stopped reading
+    private WebSocketSession session(String id, boolean stuck) throws Exception {
+        WebSocketSession session = mock(ConcurrentWebSocketSessionDecorator.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(((ConcurrentWebSocketSessionDecorator) session).getBufferSize()).thenReturn(stuck ? 1 : 0);
+        doAnswer(invocation -> {
+            CloseStatus status = invocation.getArgument(0);
+            assertEquals(ConnectionDrainer.DRAIN_CLOSE_CODE, status.getCode());
+            long delay = Long.parseLong(status.getReason().substring(ConnectionDrainer.RECONNECT_REASON_PREFIX.length()));
+            closes.add(new long[] {System.nanoTime(), delay});
+            return null;
+        }).when(session).close(any(CloseStatus.class));
+        return session;
+    }
+}
@@ -0,0 +1,88 @@
+package com.chatter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The 4096-char text buffer is set container-wide; only raw sessions may end up with it
+@SpringBootTest(classes = ChatterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "chatter.websocket.high-density.enabled=true")
+class HighDensityWebSocketTests {
+
+    private static final String LARGE = "x".repeat(6000);
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void stompFramesAboveTheRawLimitStillGetThrough() throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new StringMessageConverter());
+        StompSession session = stompClient.connectAsync("ws://localhost:" + port + "/ws/websocket", headers(),
+                new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        session.subscribe("/topic/high-density-test", new StompFrameHandler() {
+            @Override
+            @NonNull
+            public Type getPayloadType(@NonNull StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                received.add((String) payload);
+            }
+        });
+        Thread.sleep(500);
+
+        session.send("/topic/high-density-test", LARGE);
+
+        assertEquals(LARGE, received.poll(10, TimeUnit.SECONDS));
+        session.disconnect();
+    }
+
+    @Test
+    void rawFramesAboveTheLimitAreRefused() throws Exception {
+        CompletableFuture<CloseStatus> closed = new CompletableFuture<>();
+        WebSocketSession session = new StandardWebSocketClient()
+                .execute(new TextWebSocketHandler() {
+                    @Override
+                    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+                        closed.complete(status);
+                    }
+                }, headers(), URI.create("ws://localhost:" + port + "/ws-raw/websocket"))
+                .get(10, TimeUnit.SECONDS);
+
+        session.sendMessage(new TextMessage("{\"sender\":\"dense@x.com\",\"content\":\"" + LARGE + "\"}"));
+
+        assertEquals(CloseStatus.TOO_BIG_TO_PROCESS.getCode(), closed.get(10, TimeUnit.SECONDS).getCode());
+    }
+
+    private static WebSocketHttpHeaders headers() {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setOrigin("http://localhost:5173");
+        return headers;
+    }
+}
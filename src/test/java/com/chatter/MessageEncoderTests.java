@@ -0,0 +1,60 @@
+package com.chatter;
+
+import com.chatter.model.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageEncoderTests {
+
+    private MessageEncoder messageEncoder;
+
+    @BeforeEach
+    void setUp() {
+        messageEncoder = new MessageEncoder(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Test
+    void timestampMatchesTheDeclaredPattern() throws Exception {
+        DateTimeFormatter pattern = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        for (LocalDateTime timestamp : List.of(
+                LocalDateTime.of(2026, 1, 2, 3, 4, 5, 6_000_000),
+                LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(2026, 10, 19, 0, 0, 0, 0))) {
+            String json = messageEncoder.encode(message(null, timestamp)).getPayload();
+            assertTrue(json.contains("\"timestamp\":\"" + pattern.format(timestamp) + "\""), json);
+        }
+    }
+
+    @Test
+    void encodedMessageRoundTrips() throws Exception {
+        Message original = message(7L, LocalDateTime.of(2026, 10, 19, 12, 30, 15, 250_000_000));
+
+        Message decoded = messageEncoder.decode(messageEncoder.encode(original).getPayload());
+
+        assertEquals(original, decoded);
+    }
+
+    @Test
+    void errorFrameIsTagged() throws Exception {
+        assertEquals("{\"type\":\"error\",\"error\":\"Attachment not found\"}",
+                messageEncoder.encodeError("Attachment not found").getPayload());
+    }
+
+    private static Message message(Long id, LocalDateTime timestamp) {
+        Message message = new Message();
+        message.setId(id);
+        message.setSender("alice@gmail.com");
+        message.setContent("héllo \"world\"");
+        message.setMessageStatus("SENT");
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
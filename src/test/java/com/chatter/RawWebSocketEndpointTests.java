@@ -0,0 +1,125 @@
+package com.chatter;
+
+import com.chatter.repository.MessageRepository;
+import com.chatter.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The raw JSON handler and the STOMP endpoint used to share /ws, and STOMP won
+@SpringBootTest(classes = ChatterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RawWebSocketEndpointTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Test
+    void rawEndpointEchoesJsonFrames() throws Exception {
+        BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect("raw@x.com", frames);
+        try {
+            session.sendMessage(new TextMessage(
+                    "{\"sender\":\"raw@x.com\",\"recipient\":\"raw-peer@x.com\",\"content\":\"over the raw path\"}"));
+
+            String frame = awaitFrame(frames, "over the raw path");
+            assertTrue(frame.startsWith("{"), "not a raw JSON frame: " + frame);
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void directMessagesOnlyReachTheirParticipants() throws Exception {
+        BlockingQueue<String> aliceFrames = new LinkedBlockingQueue<>();
+        BlockingQueue<String> bobFrames = new LinkedBlockingQueue<>();
+        BlockingQueue<String> carolFrames = new LinkedBlockingQueue<>();
+        WebSocketSession alice = connect("raw-alice@x.com", aliceFrames);
+        WebSocketSession bob = connect("raw-bob@x.com", bobFrames);
+        WebSocketSession carol = connect("raw-carol@x.com", carolFrames);
+        try {
+            alice.sendMessage(new TextMessage(
+                    "{\"sender\":\"raw-carol@x.com\",\"recipient\":\"raw-bob@x.com\",\"content\":\"raw dm for bob\"}"));
+            alice.sendMessage(new TextMessage("{\"recipient\":\"raw-carol@x.com\",\"content\":\"raw dm for carol\"}"));
+
+            String delivered = awaitFrame(bobFrames, "raw dm for bob");
+            assertTrue(delivered.contains("\"sender\":\"raw-alice@x.com\""), delivered);
+            awaitFrame(aliceFrames, "raw dm for bob");
+            // Alice's frames are handled in order, so a leaked copy would arrive before Carol's own
+            String frame;
+            do {
+                frame = carolFrames.poll(10, TimeUnit.SECONDS);
+                assertNotNull(frame, "Carol's message never arrived");
+                assertFalse(frame.contains("raw dm for bob"), frame);
+            } while (!frame.contains("raw dm for carol"));
+        } finally {
+            alice.close();
+            bob.close();
+            carol.close();
+        }
+    }
+
+    @Test
+    void framesFromAnonymousSessionsAreDropped() throws Exception {
+        BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+        WebSocketSession session = connect(null, frames);
+        try {
+            session.sendMessage(new TextMessage(
+                    "{\"sender\":\"raw-victim@x.com\",\"recipient\":\"raw-peer@x.com\",\"content\":\"spoofed over raw\"}"));
+
+            assertEquals("{\"type\":\"error\",\"error\":\"Sign in to send messages\"}",
+                    awaitFrame(frames, "\"type\":\"error\""));
+            assertTrue(messageRepository.findAll().stream()
+                    .noneMatch(message -> "spoofed over raw".equals(message.getContent())));
+        } finally {
+            session.close();
+        }
+    }
+
+    // A null user connects without a token
+    private WebSocketSession connect(String userEmail, BlockingQueue<String> frames) throws Exception {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setOrigin("http://localhost:5173");
+        String query = userEmail == null ? "" : "?token=" + jwtService.generateToken(userEmail);
+        return new StandardWebSocketClient()
+                .execute(new TextWebSocketHandler() {
+                    @Override
+                    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+                        frames.add(message.getPayload());
+                    }
+                }, headers, URI.create("ws://localhost:" + port + "/ws-raw/websocket" + query))
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    // Skips the history replay and anything else until the wanted frame
+    private static String awaitFrame(BlockingQueue<String> frames, String containing) throws InterruptedException {
+        String frame;
+        do {
+            frame = frames.poll(10, TimeUnit.SECONDS);
+            assertNotNull(frame, "no frame containing " + containing);
+        } while (!frame.contains(containing));
+        return frame;
+    }
+}
@@ -0,0 +1,85 @@
+package com.chatter;
+
+import com.chatter.service.FriendService;
+import com.chatter.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(classes = ChatterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class StompFriendEventsTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private FriendService friendService;
+
+    @Test
+    void friendEventsReachTheUserQueueOfAuthenticatedStompSessions() throws Exception {
+        BlockingQueue<Map<?, ?>> bob = subscribe(connect("stomp-bob@x.com"));
+        BlockingQueue<Map<?, ?>> anonymous = subscribe(connect(null));
+
+        friendService.sendFriendRequest("stomp-alice@x.com", "stomp-bob@x.com");
+
+        Map<?, ?> event = bob.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event, "bob got no friend event");
+        assertEquals("REQUEST_SENT", event.get("event"));
+        assertNull(anonymous.poll(1, TimeUnit.SECONDS));
+    }
+
+    private StompSession connect(String userEmail) throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.setOrigin("http://localhost:5173");
+        StompHeaders connectHeaders = new StompHeaders();
+        if (userEmail != null) {
+            connectHeaders.add("Authorization", "Bearer " + jwtService.generateToken(userEmail));
+        }
+        return stompClient.connectAsync("ws://localhost:" + port + "/ws/websocket", handshakeHeaders, connectHeaders,
+                new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+    }
+
+    private static BlockingQueue<Map<?, ?>> subscribe(StompSession session) throws Exception {
+        BlockingQueue<Map<?, ?>> frames = new LinkedBlockingQueue<>();
+        session.subscribe("/user/queue/friends", new StompFrameHandler() {
+            @Override
+            @NonNull
+            public Type getPayloadType(@NonNull StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                frames.add((Map<?, ?>) payload);
+            }
+        });
+        // The simple broker has no receipts; give the SUBSCRIBE time to land
+        Thread.sleep(500);
+        return frames;
+    }
+}
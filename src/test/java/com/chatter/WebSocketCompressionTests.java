@@ -0,0 +1,42 @@
+package com.chatter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Both endpoints go through PerMessageDeflateHandshakeHandler, which must keep the container's
+// permessage-deflate unless it is switched off
+@SpringBootTest(classes = ChatterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WebSocketCompressionTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void permessageDeflateIsNegotiated() throws Exception {
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setOrigin("http://localhost:5173");
+        headers.setSecWebSocketExtensions(List.of(new WebSocketExtension("permessage-deflate")));
+
+        WebSocketSession session = new StandardWebSocketClient()
+                .execute(new TextWebSocketHandler(), headers, URI.create("ws://localhost:" + port + "/ws/websocket"))
+                .get(10, TimeUnit.SECONDS);
+        try {
+            assertEquals(List.of("permessage-deflate"),
+                    session.getExtensions().stream().map(WebSocketExtension::getName).toList());
+        } finally {
+            session.close();
+        }
+    }
+}
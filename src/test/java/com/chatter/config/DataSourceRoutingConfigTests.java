@@ -0,0 +1,29 @@
+package com.chatter.config;
+
+import com.chatter.ChatterApplication;
+import com.chatter.service.MessageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Turning routing on without configuring a replica must still leave reads working
+@SpringBootTest(classes = ChatterApplication.class, properties = "chatter.datasource.replica.enabled=true")
+class DataSourceRoutingConfigTests {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Test
+    void replicaDefaultsToPrimaryDatabase() {
+        messageService.saveMessage("routing@x.com", "written to the primary", null, "routing-peer@x.com");
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        assertTrue(messageService.getHistory("routing@x.com", "routing-peer@x.com", now.plusMinutes(1), 10).stream()
+                .anyMatch(message -> "written to the primary".equals(message.getContent())));
+    }
+}
@@ -0,0 +1,37 @@
+package com.chatter.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class PerMessageDeflateHandshakeHandlerTests {
+
+    private static final List<WebSocketExtension> OFFERED = List.of(
+            new WebSocketExtension(PerMessageDeflateHandshakeHandler.PERMESSAGE_DEFLATE), new WebSocketExtension("x-other"));
+
+    @Test
+    void deflateIsNegotiatedByDefault() {
+        assertEquals(List.of(PerMessageDeflateHandshakeHandler.PERMESSAGE_DEFLATE, "x-other"),
+                negotiated(new PerMessageDeflateHandshakeHandler()));
+    }
+
+    @Test
+    void deflateIsDroppedWhenDisabled() {
+        PerMessageDeflateHandshakeHandler handler = new PerMessageDeflateHandshakeHandler();
+        ReflectionTestUtils.setField(handler, "enabled", false);
+
+        assertEquals(List.of("x-other"), negotiated(handler));
+    }
+
+    private static List<String> negotiated(PerMessageDeflateHandshakeHandler handler) {
+        return handler.filterRequestedExtensions(mock(ServerHttpRequest.class), OFFERED, OFFERED).stream()
+                .map(WebSocketExtension::getName)
+                .toList();
+    }
+}
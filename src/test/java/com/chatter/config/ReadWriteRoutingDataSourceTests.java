@@ -0,0 +1,120 @@
+package com.chatter.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReadWriteRoutingDataSourceTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+    private ReplicaConsistencyTracker consistencyTracker;
+
+    @BeforeEach
+    void setUp() {
+        routeThrough(new ReplicaConsistencyTracker(60_000));
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentRole()));
+    }
+
+    @Test
+    void readWriteTransactionsUsePrimary() {
+        assertEquals("primary", readWriteTransaction.execute(status -> currentRole()));
+        assertEquals("primary", currentRole());
+    }
+
+    @Test
+    void recentWriterReadsFromPrimary() {
+        consistencyTracker.recordWrite("alice@example.com");
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> {
+            consistencyTracker.pinToPrimaryIfRecentlyWritten("alice@example.com");
+            return currentRole();
+        }));
+        assertEquals("replica", readOnlyTransaction.execute(status -> {
+            consistencyTracker.pinToPrimaryIfRecentlyWritten("bob@example.com");
+            return currentRole();
+        }));
+    }
+
+    @Test
+    void pinIsClearedWhenTransactionCompletes() {
+        consistencyTracker.recordWrite("alice@example.com");
+        readOnlyTransaction.execute(status -> {
+            consistencyTracker.pinToPrimaryIfRecentlyWritten("alice@example.com");
+            return currentRole();
+        });
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentRole()));
+    }
+
+    @Test
+    void writesOlderThanWindowAreServedByReplica() throws InterruptedException {
+        routeThrough(new ReplicaConsistencyTracker(0));
+        consistencyTracker.recordWrite("alice@example.com");
+        Thread.sleep(5);
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> {
+            consistencyTracker.pinToPrimaryIfRecentlyWritten("alice@example.com");
+            return currentRole();
+        }));
+    }
+
+    @Test
+    void expiredWritesArePruned() throws InterruptedException {
+        ReplicaConsistencyTracker tracker = new ReplicaConsistencyTracker(50);
+        for (int i = 0; i < 100; i++) {
+            tracker.recordWrite("user" + i + "@example.com");
+        }
+        Thread.sleep(100);
+        tracker.recordWrite("recent@example.com");
+
+        tracker.pruneExpiredWrites();
+
+        assertEquals(1, tracker.trackedWrites());
+    }
+
+    private void routeThrough(ReplicaConsistencyTracker tracker) {
+        consistencyTracker = tracker;
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(tracker);
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, database("routing-primary", "primary"),
+                ReadWriteRoutingDataSource.Route.REPLICA, database("routing-replica", "replica")
+        ));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    private String currentRole() {
+        return jdbcTemplate.queryForObject("SELECT role FROM node_role", String.class);
+    }
+
+    private static DataSource database(String name, String role) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS node_role (role VARCHAR(16))");
+        template.update("DELETE FROM node_role");
+        template.update("INSERT INTO node_role (role) VALUES (?)", role);
+        return dataSource;
+    }
+}
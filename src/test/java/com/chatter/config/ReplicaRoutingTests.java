@@ -0,0 +1,76 @@
+package com.chatter.config;
+
+import com.chatter.ChatterApplication;
+import com.chatter.model.Friend;
+import com.chatter.model.Message;
+import com.chatter.service.FriendService;
+import com.chatter.service.MessageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Primary and replica are separate databases, so each read shows which one answered it. Hibernate
+// only creates the schema on the primary; the replica gets it from db/schema.sql as it opens,
+// before the user directory loads from it at startup.
+@SpringBootTest(classes = ChatterApplication.class, properties = {
+        "chatter.datasource.replica.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:replica-routing-primary;DB_CLOSE_DELAY=-1",
+        "chatter.datasource.replica.url=jdbc:h2:mem:replica-routing-replica;DB_CLOSE_DELAY=-1"
+                + ";INIT=RUNSCRIPT FROM 'classpath:db/schema.sql'"
+})
+class ReplicaRoutingTests {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private FriendService friendService;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        replica = new JdbcTemplate(replicaDataSource);
+    }
+
+    @Test
+    void messageReadsGoToTheReplica() {
+        replica.update("INSERT INTO message (sender, content, is_typing, timestamp)"
+                + " VALUES ('replica@x.com', 'only on the replica', FALSE, CURRENT_TIMESTAMP)");
+        messageService.saveMessage("primary@x.com", "only on the primary", null, null);
+
+        List<String> replayed = messageService.getLastMessages().stream().map(Message::getContent).toList();
+
+        assertTrue(replayed.contains("only on the replica"), replayed.toString());
+        assertFalse(replayed.contains("only on the primary"), replayed.toString());
+    }
+
+    @Test
+    void friendReadsGoToTheReplicaUnlessTheUserJustWrote() {
+        replica.update("INSERT INTO friends (user_id, friend_id, status, created_at, version)"
+                + " VALUES ('replica-a@x.com', 'replica-b@x.com', 'ACCEPTED', CURRENT_TIMESTAMP, 0)");
+        assertEquals(List.of("replica-b@x.com"),
+                friendService.getAcceptedFriends("replica-a@x.com").stream().map(Friend::getFriendId).toList());
+
+        friendService.sendFriendRequest("writer-a@x.com", "writer-b@x.com");
+
+        // The request only exists on the primary, so finding it means the read was pinned there
+        assertEquals(List.of("writer-a@x.com"),
+                friendService.getPendingRequests("writer-b@x.com").stream().map(Friend::getUserId).toList());
+        assertEquals(List.of(), friendService.getPendingRequests("bystander@x.com"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.chatter.controller;
+
+import com.chatter.ChatterApplication;
+import com.chatter.model.ConversationSummary;
+import com.chatter.service.InboxService;
+import com.chatter.service.JwtService;
+import com.chatter.service.MessageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Direct messages only: public posts would leave a shared room entry behind for other tests
+@SpringBootTest(classes = ChatterApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ChatControllerTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Test
+    void chatMessagesAreSavedAsTheSessionUser() throws Exception {
+        StompSession alice = connect("ctl-alice@x.com");
+        BlockingQueue<Map<?, ?>> broadcast = subscribe(alice, "/topic/messages");
+
+        alice.send("/app/chat", Map.of("sender", "ctl-mallory@x.com", "content", "hello", "recipient", "ctl-bob@x.com"));
+
+        Map<?, ?> saved = broadcast.poll(10, TimeUnit.SECONDS);
+        assertNotNull(saved, "nothing was broadcast");
+        assertEquals("ctl-alice@x.com", saved.get("sender"));
+        assertNotNull(saved.get("id"));
+        ConversationSummary bob = single(inboxService.getConversations("ctl-bob@x.com"));
+        assertEquals("ctl-alice@x.com", bob.getPeerId());
+        assertEquals(1, bob.getUnreadCount());
+    }
+
+    @Test
+    void seenMarksTheViewersConversationWithTheFriendRead() throws Exception {
+        messageService.saveMessage("seen-alice@x.com", "are you there?", null, "seen-bob@x.com");
+        messageService.saveMessage("seen-alice@x.com", "hello?", null, "seen-bob@x.com");
+        Map<String, String> seen = Map.of(
+                "sender", "seen-bob@x.com", "recipient", "seen-alice@x.com", "messageStatus", "SEEN");
+
+        // Nobody to attribute the read to
+        StompSession anonymous = connect(null);
+        BlockingQueue<Map<?, ?>> statuses = subscribe(anonymous, "/topic/message-status");
+        anonymous.send("/app/message-status", seen);
+        assertNull(statuses.poll(1, TimeUnit.SECONDS));
+        assertEquals(2, single(inboxService.getConversations("seen-bob@x.com")).getUnreadCount());
+
+        connect("seen-bob@x.com").send("/app/message-status", seen);
+
+        assertNotNull(statuses.poll(10, TimeUnit.SECONDS), "status was not broadcast");
+        assertEquals(0, single(inboxService.getConversations("seen-bob@x.com")).getUnreadCount());
+        assertEquals(0, single(inboxService.getConversations("seen-alice@x.com")).getUnreadCount());
+    }
+
+    private StompSession connect(String userEmail) throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.setOrigin("http://localhost:5173");
+        StompHeaders connectHeaders = new StompHeaders();
+        if (userEmail != null) {
+            connectHeaders.add("Authorization", "Bearer " + jwtService.generateToken(userEmail));
+        }
+        return stompClient.connectAsync("ws://localhost:" + port + "/ws/websocket", handshakeHeaders, connectHeaders,
+                new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+    }
+
+    private static BlockingQueue<Map<?, ?>> subscribe(StompSession session, String destination) throws Exception {
+        BlockingQueue<Map<?, ?>> frames = new LinkedBlockingQueue<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            @NonNull
+            public Type getPayloadType(@NonNull StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                frames.add((Map<?, ?>) payload);
+            }
+        });
+        // The simple broker has no receipts; give the SUBSCRIBE time to land
+        Thread.sleep(500);
+        return frames;
+    }
+
+    private static ConversationSummary single(List<ConversationSummary> conversations) {
+        assertEquals(1, conversations.size());
+        return conversations.get(0);
+    }
+}
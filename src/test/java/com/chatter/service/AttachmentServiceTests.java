@@ -0,0 +1,165 @@
+package com.chatter.service;
+
+import com.chatter.model.Attachment;
+import com.chatter.repository.AttachmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AttachmentServiceTests {
+
+    @TempDir
+    Path storage;
+
+    private AttachmentRepository repository;
+    private AttachmentService attachmentService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AttachmentRepository.class);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        when(repository.save(any(Attachment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        attachmentService = newService();
+    }
+
+    // A fresh instance over the same storage stands in for a restart
+    private AttachmentService newService() {
+        AttachmentService service = new AttachmentService();
+        ReflectionTestUtils.setField(service, "attachmentRepository", repository);
+        ReflectionTestUtils.setField(service, "storageDir", storage.toString());
+        ReflectionTestUtils.setField(service, "maxSize", 1024L);
+        ReflectionTestUtils.setField(service, "maxChunkSize", 4L);
+        ReflectionTestUtils.setField(service, "uploadTtlMs", 60_000L);
+        return service;
+    }
+
+    @Test
+    void chunksAreResumedAndStoredByHash() throws Exception {
+        byte[] content = "hello world".getBytes(StandardCharsets.UTF_8);
+        AttachmentService.Upload upload = attachmentService.startUpload("alice", "hello.txt", "text/plain", content.length);
+
+        long received = 0;
+        while (received < content.length) {
+            int length = (int) Math.min(4, content.length - received);
+            received = attachmentService.appendChunk(upload.getId(), "alice", received,
+                    new ByteArrayInputStream(content, (int) received, length));
+        }
+        // Resending the last chunk is harmless
+        attachmentService.appendChunk(upload.getId(), "alice", 8, new ByteArrayInputStream(content, 8, 3));
+        assertEquals(content.length, attachmentService.getReceivedBytes(upload.getId(), "alice"));
+
+        Attachment attachment = attachmentService.completeUpload(upload.getId(), "alice");
+        assertEquals(upload.getId(), attachment.getId());
+        assertEquals("b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9", attachment.getContentHash());
+        assertArrayEquals(content, Files.readAllBytes(attachmentService.getContentPath(attachment)));
+    }
+
+    @Test
+    void duplicateContentIsStoredOnceButRecordedPerUpload() throws Exception {
+        byte[] content = "abc".getBytes(StandardCharsets.UTF_8);
+        Attachment alice = upload("alice", "notes.txt", content);
+        Attachment bob = upload("bob", "copy.txt", content);
+
+        try (var files = Files.walk(storage)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+        assertNotEquals(alice.getId(), bob.getId());
+        assertEquals(alice.getContentHash(), bob.getContentHash());
+        assertEquals("copy.txt", bob.getFileName());
+        assertEquals("bob", bob.getUploadedBy());
+    }
+
+    @Test
+    void uploadSurvivesRestart() throws Exception {
+        byte[] content = "resumable".getBytes(StandardCharsets.UTF_8);
+        AttachmentService.Upload upload = attachmentService.startUpload("alice", "r.txt", "text/plain", content.length);
+        attachmentService.appendChunk(upload.getId(), "alice", 0, new ByteArrayInputStream(content, 0, 4));
+
+        AttachmentService restarted = newService();
+        assertEquals(4, restarted.getReceivedBytes(upload.getId(), "alice"));
+        assertThrows(IllegalArgumentException.class, () -> restarted.getReceivedBytes(upload.getId(), "bob"));
+        long received = 4;
+        while (received < content.length) {
+            int length = (int) Math.min(4, content.length - received);
+            received = restarted.appendChunk(upload.getId(), "alice", received,
+                    new ByteArrayInputStream(content, (int) received, length));
+        }
+        assertEquals("r.txt", restarted.completeUpload(upload.getId(), "alice").getFileName());
+    }
+
+    @Test
+    void idleUploadsExpire() throws Exception {
+        AttachmentService.Upload idle = attachmentService.startUpload("alice", "idle.txt", null, 3);
+        AttachmentService.Upload active = attachmentService.startUpload("alice", "active.txt", null, 3);
+        FileTime longAgo = FileTime.fromMillis(System.currentTimeMillis() - 120_000);
+        try (var files = Files.list(storage.resolve("parts"))) {
+            for (Path file : files.filter(file -> file.getFileName().toString().startsWith(idle.getId())).toList()) {
+                Files.setLastModifiedTime(file, longAgo);
+            }
+        }
+
+        attachmentService.sweepExpiredUploads();
+
+        assertThrows(IllegalArgumentException.class, () -> attachmentService.getReceivedBytes(idle.getId(), "alice"));
+        assertEquals(0, attachmentService.getReceivedBytes(active.getId(), "alice"));
+        try (var files = Files.list(storage.resolve("parts"))) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().startsWith(idle.getId())));
+        }
+    }
+
+    @Test
+    void attachmentsAreVisibleToUploaderAndAudience() {
+        Attachment direct = new Attachment("d", "hash", "d.txt", null, 1, "alice");
+        direct.setSharedWith("bob");
+        Attachment shared = new Attachment("p", "hash", "p.txt", null, 1, "alice");
+        shared.setSharedWith(AttachmentService.PUBLIC_AUDIENCE);
+        when(repository.findById("d")).thenReturn(Optional.of(direct));
+        when(repository.findById("p")).thenReturn(Optional.of(shared));
+
+        assertTrue(attachmentService.findAttachment("d", "alice").isPresent());
+        assertTrue(attachmentService.findAttachment("d", "bob").isPresent());
+        assertFalse(attachmentService.findAttachment("d", "carol").isPresent());
+        assertTrue(attachmentService.findAttachment("p", "carol").isPresent());
+    }
+
+    @Test
+    void oversizedChunkIsRejected() throws Exception {
+        AttachmentService.Upload upload = attachmentService.startUpload("alice", "a.txt", null, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> attachmentService.appendChunk(
+                upload.getId(), "alice", 0, new ByteArrayInputStream(new byte[6])));
+        assertEquals(0, attachmentService.getReceivedBytes(upload.getId(), "alice"));
+    }
+
+    @Test
+    void uploadsAreScopedToTheirOwner() throws Exception {
+        AttachmentService.Upload upload = attachmentService.startUpload("alice", "a.txt", null, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> attachmentService.getReceivedBytes(upload.getId(), "bob"));
+    }
+
+    private Attachment upload(String owner, String fileName, byte[] content) throws Exception {
+        AttachmentService.Upload upload = attachmentService.startUpload(owner, fileName, null, content.length);
+        attachmentService.appendChunk(upload.getId(), owner, 0, new ByteArrayInputStream(content));
+        return attachmentService.completeUpload(upload.getId(), owner);
+    }
+}
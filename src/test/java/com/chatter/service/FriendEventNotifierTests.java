@@ -0,0 +1,96 @@
+package com.chatter.service;
+
+import com.chatter.model.Friend;
+import com.chatter.model.FriendEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentCaptor.forClass;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FriendEventNotifierTests {
+
+    private FriendEventNotifier notifier;
+    private FriendGraphVersions versions;
+    private UserSessionRegistry registry;
+    private SimpMessagingTemplate messagingTemplate;
+
+    @BeforeEach
+    void setUp() {
+        versions = mock(FriendGraphVersions.class);
+        when(versions.getETag(anyString())).thenAnswer(invocation -> "\"" + invocation.getArgument(0) + "\"");
+        registry = new UserSessionRegistry();
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        notifier = new FriendEventNotifier();
+        ReflectionTestUtils.setField(notifier, "friendGraphVersions", versions);
+        ReflectionTestUtils.setField(notifier, "userSessionRegistry", registry);
+        ReflectionTestUtils.setField(notifier, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(notifier, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventGoesToBothUsersOverStomp() {
+        notifier.onFriendEvent(new FriendEvent(FriendEvent.Type.REQUEST_SENT, new Friend("alice@gmail.com", "bob@gmail.com")));
+
+        ArgumentCaptor<Object> pushed = forClass(Object.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("alice@gmail.com"), eq(FriendEventNotifier.FRIENDS_QUEUE), pushed.capture());
+        Map<String, Object> frame = (Map<String, Object>) pushed.getValue();
+        assertEquals(FriendEvent.Type.REQUEST_SENT, frame.get("event"));
+        assertEquals("\"alice@gmail.com\"", frame.get("version"));
+        verify(messagingTemplate).convertAndSendToUser(eq("bob@gmail.com"), eq(FriendEventNotifier.FRIENDS_QUEUE), any(Object.class));
+        verify(messagingTemplate, never()).convertAndSendToUser(eq("carol@gmail.com"), anyString(), any(Object.class));
+    }
+
+    @Test
+    void eventGoesToRawSessionsOfBothUsersOnly() throws Exception {
+        WebSocketSession alice = session("1", "alice@gmail.com");
+        WebSocketSession carol = session("2", "carol@gmail.com");
+        registry.register(alice);
+        registry.register(carol);
+
+        notifier.onFriendEvent(new FriendEvent(FriendEvent.Type.REQUEST_SENT, new Friend("alice@gmail.com", "bob@gmail.com")));
+
+        ArgumentCaptor<TextMessage> pushed = forClass(TextMessage.class);
+        verify(alice).sendMessage(pushed.capture());
+        assertTrue(pushed.getValue().getPayload().contains("\"event\":\"REQUEST_SENT\""));
+        verify(carol, never()).sendMessage(any());
+    }
+
+    @Test
+    void closedSessionsStopReceivingEvents() throws Exception {
+        WebSocketSession alice = session("1", "alice@gmail.com");
+        registry.register(alice);
+        registry.unregister(alice);
+
+        notifier.onFriendEvent(new FriendEvent(FriendEvent.Type.REMOVED, new Friend("alice@gmail.com", "bob@gmail.com")));
+
+        verify(alice, never()).sendMessage(any());
+    }
+
+    private static WebSocketSession session(String id, String userEmail) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(UserSessionRegistry.USER_ATTRIBUTE, userEmail);
+        when(session.getId()).thenReturn(id);
+        when(session.getAttributes()).thenReturn(attributes);
+        return session;
+    }
+}
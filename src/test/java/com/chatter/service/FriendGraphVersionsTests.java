@@ -0,0 +1,60 @@
+package com.chatter.service;
+
+import com.chatter.ChatterApplication;
+import com.chatter.model.Friend;
+import com.chatter.model.FriendStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@SpringBootTest(classes = ChatterApplication.class)
+@Transactional
+class FriendGraphVersionsTests {
+
+    @Autowired
+    private FriendGraphVersions friendGraphVersions;
+
+    @Autowired
+    private FriendService friendService;
+
+    @Test
+    void everyFriendshipChangeMovesBothUsersETags() {
+        String alice = friendGraphVersions.getETag("etag-alice@x.com");
+        String bob = friendGraphVersions.getETag("etag-bob@x.com");
+        String carol = friendGraphVersions.getETag("etag-carol@x.com");
+
+        Friend request = friendService.sendFriendRequest("etag-alice@x.com", "etag-bob@x.com");
+        String aliceRequested = assertMoved(alice, "etag-alice@x.com");
+        String bobRequested = assertMoved(bob, "etag-bob@x.com");
+
+        friendService.updateFriendRequestStatus(request.getId(), FriendStatus.ACCEPTED, "etag-bob@x.com");
+        String aliceAccepted = assertMoved(aliceRequested, "etag-alice@x.com");
+        assertMoved(bobRequested, "etag-bob@x.com");
+
+        friendService.removeFriend("etag-alice@x.com", "etag-bob@x.com");
+        assertMoved(aliceAccepted, "etag-alice@x.com");
+
+        assertEquals(carol, friendGraphVersions.getETag("etag-carol@x.com"));
+    }
+
+    @Test
+    void removingAndAddingAgainGivesANewETag() {
+        friendService.sendFriendRequest("etag-dave@x.com", "etag-erin@x.com");
+        String before = friendGraphVersions.getETag("etag-dave@x.com");
+
+        friendService.removeFriend("etag-dave@x.com", "etag-erin@x.com");
+        friendService.sendFriendRequest("etag-dave@x.com", "etag-erin@x.com");
+
+        assertNotEquals(before, friendGraphVersions.getETag("etag-dave@x.com"));
+    }
+
+    private String assertMoved(String before, String userEmail) {
+        String after = friendGraphVersions.getETag(userEmail);
+        assertNotEquals(before, after, userEmail);
+        return after;
+    }
+}
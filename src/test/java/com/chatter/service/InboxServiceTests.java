@@ -0,0 +1,131 @@
+package com.chatter.service;
+
+import com.chatter.ChatterApplication;
+import com.chatter.model.ConversationSummary;
+import com.chatter.model.Message;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(classes = ChatterApplication.class)
+@Transactional
+class InboxServiceTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private static final int SENDERS = 4;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void directMessagesUpdateBothSides() {
+        inboxService.recordMessage(message("alice@x.com", "bob@x.com", "hi"));
+        inboxService.recordMessage(message("bob@x.com", "alice@x.com", "yo"));
+        inboxService.recordMessage(message("alice@x.com", "bob@x.com", "again"));
+
+        ConversationSummary alice = single(inboxService.getConversations("alice@x.com"));
+        assertEquals("bob@x.com", alice.getPeerId());
+        assertEquals("again", alice.getSnippet());
+        assertEquals(0, alice.getUnreadCount());
+
+        ConversationSummary bob = single(inboxService.getConversations("bob@x.com"));
+        assertEquals("alice@x.com", bob.getPeerId());
+        assertEquals("alice@x.com", bob.getLastSender());
+        assertEquals(1, bob.getUnreadCount());
+
+        inboxService.markRead("bob@x.com", "alice@x.com");
+        assertEquals(0, single(inboxService.getConversations("bob@x.com")).getUnreadCount());
+    }
+
+    @Test
+    void publicRoomIsSharedAndReadPerUser() {
+        inboxService.recordMessage(message("carol@x.com", null, "morning"));
+        inboxService.recordMessage(message("carol@x.com", null, "anyone?"));
+
+        ConversationSummary dave = single(inboxService.getConversations("dave@x.com"));
+        assertEquals(InboxService.PUBLIC_PEER, dave.getPeerId());
+        assertEquals("anyone?", dave.getSnippet());
+        assertEquals(2, dave.getUnreadCount());
+        assertEquals(0, single(inboxService.getConversations("carol@x.com")).getUnreadCount());
+
+        inboxService.markRead("dave@x.com", InboxService.PUBLIC_PEER);
+        inboxService.recordMessage(message("carol@x.com", null, "there you are"));
+        assertEquals(1, single(inboxService.getConversations("dave@x.com")).getUnreadCount());
+    }
+
+    @Test
+    void conversationsAreListedMostRecentFirst() {
+        inboxService.recordMessage(message("erin@x.com", "frank@x.com", "first"));
+        inboxService.recordMessage(message("grace@x.com", "erin@x.com", "second"));
+
+        List<ConversationSummary> erin = inboxService.getConversations("erin@x.com");
+        assertEquals(List.of("grace@x.com", "frank@x.com"), erin.stream().map(ConversationSummary::getPeerId).toList());
+    }
+
+    // Every sender finds no entry and inserts one; the losers must fall back to the winner's row
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentFirstMessagesShareOneEntry() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(SENDERS);
+        try {
+            for (int pair = 0; pair < 10; pair++) {
+                String sender = "race" + pair + "-a@x.com";
+                String recipient = "race" + pair + "-b@x.com";
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> sends = new ArrayList<>();
+                for (int i = 0; i < SENDERS; i++) {
+                    sends.add(executor.submit(() -> {
+                        start.await();
+                        transactionTemplate.executeWithoutResult(
+                                status -> inboxService.recordMessage(message(sender, recipient, "first")));
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> send : sends) {
+                    send.get(30, TimeUnit.SECONDS);
+                }
+                assertEquals(SENDERS, single(inboxService.getConversations(recipient)).getUnreadCount());
+                assertEquals(0, single(inboxService.getConversations(sender)).getUnreadCount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Message message(String sender, String recipient, String content) {
+        long id = ids.incrementAndGet();
+        Message message = new Message(sender, content, START.plusMinutes(id).toString());
+        message.setId(id);
+        message.setRecipient(recipient);
+        return message;
+    }
+
+    private static ConversationSummary single(List<ConversationSummary> conversations) {
+        assertEquals(1, conversations.size());
+        return conversations.get(0);
+    }
+}
@@ -0,0 +1,140 @@
+package com.chatter.service;
+
+import com.chatter.config.RetentionConfig;
+import com.chatter.model.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageArchiveTests {
+
+    @TempDir
+    Path archiveDir;
+
+    private RetentionConfig retentionConfig;
+    private MessageArchive messageArchive;
+
+    @BeforeEach
+    void setUp() {
+        retentionConfig = new RetentionConfig();
+        retentionConfig.setArchiveDir(archiveDir.toString());
+        retentionConfig.setDefaultDays(30);
+
+        messageArchive = new MessageArchive(Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(messageArchive, "retentionConfig", retentionConfig);
+    }
+
+    @Test
+    void readBeforeReturnsNewestFirstAcrossDaysAndSegments() throws Exception {
+        messageArchive.writeDay(LocalDate.of(2024, 3, 1), List.of(
+                message(1L, "alice", null, "2024-03-01T10:00:00"),
+                message(2L, "alice", "bob", "2024-03-01T11:00:00")));
+        messageArchive.writeDay(LocalDate.of(2024, 3, 2), List.of(
+                message(3L, "bob", "alice", "2024-03-02T09:00:00"),
+                message(4L, "carol", null, "2024-03-02T12:00:00")));
+
+        List<Message> page = messageArchive.readBefore(
+                MessageArchive.conversationKey("alice", "bob"), LocalDateTime.parse("2024-03-02T12:00:00"), 2);
+
+        assertEquals(List.of(3L, 2L), page.stream().map(Message::getId).toList());
+        assertEquals("alice", page.get(1).getSender());
+        assertEquals(List.of(1L), messageArchive.readBefore(
+                MessageArchive.PUBLIC_CONVERSATION, LocalDateTime.parse("2024-03-02T12:00:00"), 10)
+                .stream().map(Message::getId).toList());
+    }
+
+    @Test
+    void rewritingADayReplacesItsSegments() throws Exception {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        messageArchive.writeDay(day, List.of(message(1L, "alice", null, "2024-03-01T10:00:00")));
+        messageArchive.writeDay(day, List.of(message(1L, "alice", null, "2024-03-01T10:00:00")));
+
+        assertEquals(1, messageArchive.readBefore(
+                MessageArchive.PUBLIC_CONVERSATION, LocalDateTime.parse("2024-03-02T00:00:00"), 10).size());
+    }
+
+    @Test
+    void retentionDeletesExpiredSegmentsPerConversation() throws Exception {
+        retentionConfig.getConversationDays().put(MessageArchive.PUBLIC_CONVERSATION, 5);
+        LocalDate today = LocalDate.of(2024, 3, 20);
+        LocalDate tenDaysAgo = today.minusDays(10);
+        messageArchive.writeDay(tenDaysAgo, List.of(
+                message(1L, "alice", null, "2024-03-10T10:00:00"),
+                message(2L, "alice", "bob", "2024-03-10T11:00:00")));
+        messageArchive.writeDay(today.minusDays(40), List.of(
+                message(3L, "bob", "alice", "2024-02-09T09:00:00")));
+
+        assertEquals(2, messageArchive.enforceRetention(today));
+
+        assertTrue(messageArchive.readBefore(
+                MessageArchive.PUBLIC_CONVERSATION, LocalDateTime.parse("2024-03-20T00:00:00"), 10).isEmpty());
+        List<Message> remaining = messageArchive.readBefore(
+                MessageArchive.conversationKey("alice", "bob"), LocalDateTime.parse("2024-03-20T00:00:00"), 10);
+        assertEquals(List.of(2L), remaining.stream().map(Message::getId).toList());
+        assertTrue(Files.isDirectory(archiveDir.resolve(tenDaysAgo.toString())));
+        assertFalse(Files.exists(archiveDir.resolve(today.minusDays(40).toString())));
+    }
+
+    @Test
+    void largeSegmentsAreSplitIntoPartsAndExpireTogether() throws Exception {
+        retentionConfig.setPartMessages(2);
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        messageArchive.writeDay(day, List.of(
+                message(1L, "alice", null, "2024-03-01T10:00:00"),
+                message(2L, "alice", null, "2024-03-01T10:01:00"),
+                message(3L, "alice", null, "2024-03-01T10:02:00"),
+                message(4L, "alice", null, "2024-03-01T10:03:00"),
+                message(5L, "alice", null, "2024-03-01T10:04:00")));
+        Path dayDir = archiveDir.resolve(day.toString());
+        String segment = MessageArchive.segmentName(MessageArchive.PUBLIC_CONVERSATION);
+        assertTrue(Files.exists(dayDir.resolve(MessageArchive.partName(segment, 2))));
+
+        assertEquals(List.of(5L, 4L), messageArchive.readBefore(
+                MessageArchive.PUBLIC_CONVERSATION, LocalDateTime.parse("2024-03-02T00:00:00"), 2)
+                .stream().map(Message::getId).toList());
+        assertEquals(List.of(3L, 2L, 1L), messageArchive.readBefore(
+                MessageArchive.PUBLIC_CONVERSATION, LocalDateTime.parse("2024-03-01T10:03:00"), 10)
+                .stream().map(Message::getId).toList());
+
+        assertEquals(1, messageArchive.enforceRetention(day.plusDays(31)));
+        assertFalse(Files.exists(dayDir));
+    }
+
+    @Test
+    void abandonedDayLeavesNothingBehind() throws Exception {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        try (MessageArchive.DayWriter writer = messageArchive.openDay(day)) {
+            writer.write(message(1L, "alice", null, "2024-03-01T10:00:00"));
+        }
+
+        assertFalse(messageArchive.isArchived(day));
+        try (var entries = Files.list(archiveDir)) {
+            assertEquals(0, entries.count());
+        }
+    }
+
+    @Test
+    void directMessagesShareOneConversationWhicheverSideSent() {
+        assertEquals(MessageArchive.conversationKey(message(1L, "bob", "alice", "2024-03-01T10:00:00")),
+                MessageArchive.conversationKey(message(2L, "alice", "bob", "2024-03-01T10:00:00")));
+    }
+
+    private static Message message(Long id, String sender, String recipient, String timestamp) {
+        Message message = new Message(sender, "hi", timestamp);
+        message.setId(id);
+        message.setRecipient(recipient);
+        return message;
+    }
+}
@@ -0,0 +1,158 @@
+package com.chatter.service;
+
+import com.chatter.ChatterApplication;
+import com.chatter.model.Message;
+import com.chatter.repository.MessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ChatterApplication.class, properties = {
+        "chatter.retention.enabled=true",
+        "chatter.retention.hot-days=2",
+        "chatter.retention.batch-size=10",
+        "chatter.retention.archive-dir=target/retention-job-tests"})
+class MessageRetentionJobTests {
+
+    private static final Path ARCHIVE_DIR = Path.of("target/retention-job-tests");
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    private final List<Long> saved = new ArrayList<>();
+
+    @Autowired
+    private MessageRetentionJob messageRetentionJob;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageService messageService;
+
+    @BeforeEach
+    void setUp() {
+        FileSystemUtils.deleteRecursively(ARCHIVE_DIR.toFile());
+    }
+
+    @AfterEach
+    void tearDown() {
+        messageRepository.deleteAllById(saved);
+    }
+
+    @Test
+    void coldDaysMoveToTheArchiveInBatchesAndHotDaysStay() throws Exception {
+        LocalDate coldDay = today.minusDays(5);
+        for (int i = 0; i < 25; i++) {
+            save("retention-alice@x.com", "retention-bob@x.com", coldDay.atTime(10, 0).plusMinutes(i));
+        }
+        save("retention-alice@x.com", null, today.minusDays(4).atTime(9, 0));
+        save("retention-alice@x.com", "retention-bob@x.com", today.atStartOfDay());
+
+        assertEquals(2, messageRetentionJob.compact(today));
+
+        assertTrue(coldRows().isEmpty());
+        assertEquals(25, messageArchive.readBefore(MessageArchive.conversationKey("retention-bob@x.com", "retention-alice@x.com"),
+                today.atStartOfDay(), 100).size());
+        assertEquals(1, messageRepository.findDirectBefore("retention-alice@x.com", "retention-bob@x.com",
+                today.plusDays(1).atStartOfDay(), PageRequest.of(0, 10)).size());
+    }
+
+    @Test
+    void interruptedDeletesFinishWithoutArchivingTheDayTwice() throws Exception {
+        LocalDate coldDay = today.minusDays(6);
+        List<Message> rows = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            rows.add(save("retention-carol@x.com", "retention-dave@x.com", coldDay.atTime(8, 0).plusMinutes(i)));
+        }
+        // As if the last run committed the archive and died before deleting
+        rows.forEach(row -> row.setContent("archived copy"));
+        messageArchive.writeDay(coldDay, rows);
+
+        messageRetentionJob.compact(today);
+
+        assertTrue(coldRows().isEmpty());
+        List<Message> archived = messageArchive.readBefore(
+                MessageArchive.conversationKey("retention-carol@x.com", "retention-dave@x.com"), today.atStartOfDay(), 100);
+        assertEquals(12, archived.size());
+        assertTrue(archived.stream().allMatch(message -> "archived copy".equals(message.getContent())));
+    }
+
+    @Test
+    void historyReadsTheArchiveOnlyPastTheHotTable() throws Exception {
+        LocalDate coldDay = today.minusDays(7);
+        for (int i = 0; i < 3; i++) {
+            save("retention-erin@x.com", "retention-frank@x.com", coldDay.atTime(12, 0).plusMinutes(i));
+        }
+        messageRetentionJob.compact(today);
+        Message recent = save("retention-frank@x.com", "retention-erin@x.com", LocalDateTime.now(ZoneOffset.UTC));
+
+        List<Message> firstPage = messageService.getHistory("retention-erin@x.com", "retention-frank@x.com",
+                LocalDateTime.now(ZoneOffset.UTC).plusMinutes(1), 1);
+        assertEquals(List.of(recent.getId()), firstPage.stream().map(Message::getId).toList());
+
+        List<Message> all = messageService.getHistory("retention-erin@x.com", "retention-frank@x.com",
+                LocalDateTime.now(ZoneOffset.UTC).plusMinutes(1), 10);
+        assertEquals(4, all.size());
+        assertFalse(messageService.getLastMessages().stream()
+                .anyMatch(message -> message.getTimestamp().toLocalDate().equals(coldDay)));
+    }
+
+    @Test
+    void replayTopsUpAQuietPublicRoomFromTheArchive() throws Exception {
+        LocalDate coldDay = today.minusDays(8);
+        List<Message> archived = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Message message = new Message();
+            message.setId(-1L - i);
+            message.setSender("retention-gina@x.com");
+            message.setContent("archived public " + i);
+            message.setMessageStatus("SENT");
+            message.setTimestamp(coldDay.atTime(9, 0).plusMinutes(i));
+            archived.add(message);
+        }
+        messageArchive.writeDay(coldDay, archived);
+
+        List<Message> replay = messageService.getLastMessages();
+
+        assertEquals(50, replay.size());
+        assertTrue(replay.stream().anyMatch(message -> "archived public 59".equals(message.getContent())));
+        assertTrue(replay.stream().allMatch(message -> message.getRecipient() == null || message.getRecipient().isEmpty()));
+    }
+
+    private Message save(String sender, String recipient, LocalDateTime timestamp) {
+        Message message = new Message();
+        message.setSender(sender);
+        message.setRecipient(recipient);
+        message.setContent("retention test");
+        message.setMessageStatus("SENT");
+        message.setTimestamp(timestamp);
+        Message stored = messageRepository.save(message);
+        saved.add(stored.getId());
+        return stored;
+    }
+
+    private List<Long> coldRows() {
+        LocalDateTime cutoff = today.minusDays(2).atStartOfDay();
+        return messageRepository.findAll().stream()
+                .filter(message -> message.getTimestamp().isBefore(cutoff))
+                .map(Message::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.chatter.service;
+
+import com.chatter.ChatterApplication;
+import com.chatter.model.Attachment;
+import com.chatter.repository.AttachmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = ChatterApplication.class)
+@Transactional
+class MessageServiceTests {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Test
+    void unknownAttachmentIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.saveMessage("alice@x.com", "see file", "no-such-upload", "bob@x.com"));
+    }
+
+    @Test
+    void attachmentIsSentOnceBySomeoneWhoUploadedIt() {
+        attachmentRepository.save(new Attachment("upload-1", "hash", "a.txt", null, 1, "alice@x.com"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.saveMessage("mallory@x.com", "mine now", "upload-1", null));
+        messageService.saveMessage("alice@x.com", "for you", "upload-1", "bob@x.com");
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.saveMessage("alice@x.com", "and everyone", "upload-1", null));
+
+        assertEquals("bob@x.com", attachmentRepository.findById("upload-1").orElseThrow().getSharedWith());
+    }
+}
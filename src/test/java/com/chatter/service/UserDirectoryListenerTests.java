@@ -0,0 +1,63 @@
+package com.chatter.service;
+
+import com.chatter.ChatterApplication;
+import com.chatter.model.User;
+import com.chatter.model.UserProfile;
+import com.chatter.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = ChatterApplication.class)
+class UserDirectoryListenerTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void savedUsersAreIndexedAfterCommit() {
+        User user = new User();
+        user.setName("Quentin Blake");
+        user.setEmail("quentin@x.com");
+        User saved = userRepository.save(user);
+        assertEquals(List.of("quentin@x.com"), emails(userDirectory.search("quen", 10)));
+
+        saved.setName("Quinn Blake");
+        saved.setEmail("quinn@x.com");
+        userRepository.save(saved);
+        assertTrue(userDirectory.search("quentin", 10).isEmpty());
+        assertEquals(List.of("quinn@x.com"), emails(userDirectory.search("quinn", 10)));
+
+        userRepository.delete(saved);
+        assertTrue(userDirectory.search("quinn", 10).isEmpty());
+    }
+
+    @Test
+    void rolledBackSaveIsNotIndexed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = new User();
+            user.setName("Rollback Rita");
+            user.setEmail("rita@x.com");
+            userRepository.saveAndFlush(user);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(userDirectory.search("rita", 10).isEmpty());
+    }
+
+    private static List<String> emails(List<UserProfile> profiles) {
+        return profiles.stream().map(UserProfile::getEmail).toList();
+    }
+}
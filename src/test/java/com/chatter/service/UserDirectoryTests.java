@@ -0,0 +1,69 @@
+package com.chatter.service;
+
+import com.chatter.model.User;
+import com.chatter.model.UserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserDirectoryTests {
+
+    private UserDirectory userDirectory;
+
+    @BeforeEach
+    void setUp() {
+        userDirectory = new UserDirectory();
+        userDirectory.add(user(1L, "Alice Smith", "alice@gmail.com"));
+        userDirectory.add(user(2L, "Alan Turing", "alan@example.com"));
+        userDirectory.add(user(3L, "Bob Smithers", "bob@gmail.com"));
+    }
+
+    @Test
+    void searchMatchesEmailAndNamePrefixes() {
+        assertEquals(List.of("alan@example.com", "alice@gmail.com"), emails(userDirectory.search("Al", 10)));
+        assertEquals(List.of("alice@gmail.com", "bob@gmail.com"), emails(userDirectory.search("smith", 10)));
+        assertEquals(List.of("bob@gmail.com"), emails(userDirectory.search("bob@", 10)));
+    }
+
+    @Test
+    void searchReturnsEachUserOnceAndHonoursLimit() {
+        // "alice" matches both the email and the first name
+        assertEquals(1, userDirectory.search("alice", 10).size());
+        assertEquals(1, userDirectory.search("a", 1).size());
+        assertTrue(userDirectory.search(" ", 10).isEmpty());
+    }
+
+    @Test
+    void reAddingUserReplacesOldTokens() {
+        userDirectory.add(user(1L, "Alice Jones", "alice@gmail.com"));
+
+        assertEquals(List.of("bob@gmail.com"), emails(userDirectory.search("smith", 10)));
+        assertEquals(List.of("alice@gmail.com"), emails(userDirectory.search("jon", 10)));
+    }
+
+    @Test
+    void batchLookupSkipsUnknownEmails() {
+        Map<String, UserProfile> profiles = userDirectory.findByEmails(List.of("bob@gmail.com", "nobody@gmail.com"));
+
+        assertEquals(1, profiles.size());
+        assertEquals("Bob Smithers", profiles.get("bob@gmail.com").getName());
+    }
+
+    private static List<String> emails(List<UserProfile> profiles) {
+        return profiles.stream().map(UserProfile::getEmail).collect(Collectors.toList());
+    }
+
+    private static User user(Long id, String name, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+}